@@ -0,0 +1,152 @@
+package com.example.myfunds.cache;
+
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundStock;
+import com.example.myfunds.mapper.FundMapper;
+import com.example.myfunds.mapper.FundStockMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 基金参考数据进程内缓存
+ * 按基金代码、基金ID缓存基金信息，按基金ID缓存最新持仓，容量和写入时长双重淘汰；
+ * 缓存中的对象为只读共享对象，调用方不得修改，需要修改时先复制
+ */
+@Component
+@Slf4j
+public class FundCache {
+
+    @Autowired
+    private FundMapper fundMapper;
+
+    @Autowired
+    private FundStockMapper fundStockMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${myfunds.cache.fund.max-size:10000}")
+    private long fundMaxSize;
+
+    @Value("${myfunds.cache.fund.expire-after-write:10m}")
+    private Duration fundExpireAfterWrite;
+
+    @Value("${myfunds.cache.holdings.max-size:10000}")
+    private long holdingsMaxSize;
+
+    @Value("${myfunds.cache.holdings.expire-after-write:30m}")
+    private Duration holdingsExpireAfterWrite;
+
+    private Cache<String, Fund> fundsByCode;
+
+    private Cache<Long, Fund> fundsById;
+
+    private Cache<Long, List<FundStock>> holdingsByFundId;
+
+    @PostConstruct
+    public void init() {
+        fundsByCode = Caffeine.newBuilder()
+                .maximumSize(fundMaxSize)
+                .expireAfterWrite(fundExpireAfterWrite)
+                .recordStats()
+                .build();
+        fundsById = Caffeine.newBuilder()
+                .maximumSize(fundMaxSize)
+                .expireAfterWrite(fundExpireAfterWrite)
+                .recordStats()
+                .build();
+        holdingsByFundId = Caffeine.newBuilder()
+                .maximumSize(holdingsMaxSize)
+                .expireAfterWrite(holdingsExpireAfterWrite)
+                .recordStats()
+                .build();
+
+        // 命中率、淘汰数等统计通过 /actuator/metrics/cache.* 查看
+        CaffeineCacheMetrics.monitor(meterRegistry, fundsByCode, "fund.byCode");
+        CaffeineCacheMetrics.monitor(meterRegistry, fundsById, "fund.byId");
+        CaffeineCacheMetrics.monitor(meterRegistry, holdingsByFundId, "fund.holdings");
+    }
+
+    /**
+     * 按基金代码读取基金，未命中时查询数据库
+     * @return 基金信息，不存在时返回 null
+     */
+    public Fund getByCode(String fundCode) {
+        Fund fund = fundsByCode.get(fundCode, code -> fundMapper.selectByFundCode(code).orElse(null));
+        if (fund != null) {
+            fundsById.put(fund.getId(), fund);
+        }
+        return fund;
+    }
+
+    /**
+     * 按基金ID读取基金，未命中时查询数据库
+     * @return 基金信息，不存在时返回 null
+     */
+    public Fund getById(Long fundId) {
+        Fund fund = fundsById.get(fundId, id -> fundMapper.selectById(id).orElse(null));
+        if (fund != null) {
+            fundsByCode.put(fund.getFundCode(), fund);
+        }
+        return fund;
+    }
+
+    /**
+     * 按基金ID读取最新报告期持仓，未命中时查询数据库
+     */
+    public List<FundStock> getHoldings(Long fundId) {
+        return holdingsByFundId.get(fundId, id -> Collections.unmodifiableList(fundStockMapper.selectByFundId(id)));
+    }
+
+    /**
+     * 基金数据写入后更新缓存
+     * 存在事务时在事务提交后替换，事务回滚则不影响缓存；持仓直接失效，下次读取时重新加载
+     * @param fund 已保存的基金信息，调用后不得再修改
+     * @param holdingsChanged 持仓是否发生写入
+     */
+    public void replaceAfterCommit(Fund fund, boolean holdingsChanged) {
+        runAfterCommit(() -> {
+            fundsByCode.put(fund.getFundCode(), fund);
+            fundsById.put(fund.getId(), fund);
+            if (holdingsChanged) {
+                holdingsByFundId.invalidate(fund.getId());
+            }
+            log.debug("基金缓存已更新，基金代码：{}", fund.getFundCode());
+        });
+    }
+
+    /**
+     * 失效指定基金的全部缓存
+     */
+    public void invalidate(Fund fund) {
+        fundsByCode.invalidate(fund.getFundCode());
+        fundsById.invalidate(fund.getId());
+        holdingsByFundId.invalidate(fund.getId());
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,200 @@
+package com.example.myfunds.calendar;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.io.Resource;
+import org.springframework.core.io.ResourceLoader;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * 交易日历
+ * 周末及日历文件中列出的休市日为非交易日，交易日内按上午、下午两个交易时段开市。
+ * 日历文件每行一个休市日期（yyyy-MM-dd），# 开头为注释，需按交易所每年发布的休市安排维护
+ */
+@Component
+@Slf4j
+public class TradingCalendar {
+
+    @Autowired
+    private ResourceLoader resourceLoader;
+
+    @Value("${myfunds.trading.calendar-location:classpath:trading-calendar.txt}")
+    private String calendarLocation;
+
+    @Value("${myfunds.trading.morning-open:09:30}")
+    private String morningOpenText;
+
+    private LocalTime morningOpen;
+
+    @Value("${myfunds.trading.morning-close:11:30}")
+    private String morningCloseText;
+
+    private LocalTime morningClose;
+
+    @Value("${myfunds.trading.afternoon-open:13:00}")
+    private String afternoonOpenText;
+
+    private LocalTime afternoonOpen;
+
+    @Value("${myfunds.trading.afternoon-close:15:00}")
+    private String afternoonCloseText;
+
+    private LocalTime afternoonClose;
+
+    private volatile Set<LocalDate> holidays = Collections.emptySet();
+
+    @PostConstruct
+    public void init() throws IOException {
+        morningOpen = LocalTime.parse(morningOpenText);
+        morningClose = LocalTime.parse(morningCloseText);
+        afternoonOpen = LocalTime.parse(afternoonOpenText);
+        afternoonClose = LocalTime.parse(afternoonCloseText);
+        reload();
+    }
+
+    /**
+     * 重新加载日历文件
+     */
+    public void reload() throws IOException {
+        Resource resource = resourceLoader.getResource(calendarLocation);
+        if (!resource.exists()) {
+            log.warn("交易日历文件不存在，仅按周末判断休市，位置：{}", calendarLocation);
+            holidays = Collections.emptySet();
+            return;
+        }
+        Set<LocalDate> loaded = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(
+                new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) {
+                    loaded.add(LocalDate.parse(line));
+                }
+            }
+        }
+        holidays = loaded;
+        log.info("交易日历加载完成，休市日数量：{}, 位置：{}", loaded.size(), calendarLocation);
+        int currentYear = LocalDate.now().getYear();
+        boolean currentYearListed = false;
+        for (LocalDate holiday : loaded) {
+            if (holiday.getYear() == currentYear) {
+                currentYearListed = true;
+                break;
+            }
+        }
+        if (!currentYearListed) {
+            log.warn("交易日历未列出{}年的休市日，节假日将被视为交易日，请按交易所休市安排更新日历文件，位置：{}", 
+                    currentYear, calendarLocation);
+        }
+    }
+
+    public boolean isTradingDay(LocalDate date) {
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        return dayOfWeek != DayOfWeek.SATURDAY && dayOfWeek != DayOfWeek.SUNDAY && !holidays.contains(date);
+    }
+
+    /**
+     * 是否处于交易时段内
+     */
+    public boolean isInSession(LocalDateTime time) {
+        if (!isTradingDay(time.toLocalDate())) {
+            return false;
+        }
+        LocalTime t = time.toLocalTime();
+        return (!t.isBefore(morningOpen) && t.isBefore(morningClose))
+                || (!t.isBefore(afternoonOpen) && t.isBefore(afternoonClose));
+    }
+
+    /**
+     * 当前时间之后（含当前时间）最近一个交易时段的开始时间，处于交易时段内时返回当前时间
+     */
+    public LocalDateTime nextSessionStart(LocalDateTime time) {
+        if (isInSession(time)) {
+            return time;
+        }
+        LocalDate date = time.toLocalDate();
+        if (isTradingDay(date)) {
+            LocalTime t = time.toLocalTime();
+            if (t.isBefore(morningOpen)) {
+                return date.atTime(morningOpen);
+            }
+            if (t.isBefore(afternoonOpen)) {
+                return date.atTime(afternoonOpen);
+            }
+        }
+        return nextTradingDay(date).atTime(morningOpen);
+    }
+
+    /**
+     * 指定交易日的收盘时间，即当日净值对应的委托截止时间
+     */
+    public LocalDateTime sessionClose(LocalDate date) {
+        return date.atTime(afternoonClose);
+    }
+
+    /**
+     * 给定日期之后的下一个交易日（不含当天）
+     */
+    public LocalDate nextTradingDay(LocalDate date) {
+        LocalDate next = date.plusDays(1);
+        while (!isTradingDay(next)) {
+            next = next.plusDays(1);
+        }
+        return next;
+    }
+
+    /**
+     * 给定时间时最近一个已收盘的交易日，当天为交易日且已过收盘时间时返回当天
+     */
+    public LocalDate lastClosedTradingDay(LocalDateTime time) {
+        LocalDate date = time.toLocalDate();
+        if (isTradingDay(date) && !time.isBefore(sessionClose(date))) {
+            return date;
+        }
+        LocalDate previous = date.minusDays(1);
+        while (!isTradingDay(previous)) {
+            previous = previous.minusDays(1);
+        }
+        return previous;
+    }
+
+    /**
+     * 非交易时段的原因说明，处于交易时段内时返回 null
+     */
+    public String describeClosed(LocalDateTime time) {
+        LocalDate date = time.toLocalDate();
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        if (dayOfWeek == DayOfWeek.SATURDAY || dayOfWeek == DayOfWeek.SUNDAY) {
+            return "周末休市";
+        }
+        if (holidays.contains(date)) {
+            return "节假日休市";
+        }
+        if (isInSession(time)) {
+            return null;
+        }
+        LocalTime t = time.toLocalTime();
+        if (t.isBefore(morningOpen)) {
+            return "未开盘";
+        }
+        if (t.isBefore(afternoonOpen)) {
+            return "午间休市";
+        }
+        return "已收盘";
+    }
+}
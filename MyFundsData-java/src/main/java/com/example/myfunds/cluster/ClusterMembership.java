@@ -0,0 +1,18 @@
+package com.example.myfunds.cluster;
+
+import java.util.List;
+
+/**
+ * 集群成员信息
+ */
+public interface ClusterMembership {
+    /**
+     * 当前节点ID
+     */
+    String getLocalNodeId();
+
+    /**
+     * 当前存活的节点ID，包含当前节点
+     */
+    List<String> getLiveNodeIds();
+}
@@ -0,0 +1,87 @@
+package com.example.myfunds.cluster;
+
+import com.example.myfunds.config.ClusterProperties;
+import com.example.myfunds.mapper.ServiceNodeMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.List;
+
+/**
+ * 基于数据库心跳表的集群成员发现
+ * 每个节点定期向 SERVICE_NODE 写入心跳，心跳未超时的节点视为存活；
+ * 同一台机器上以不同端口启动多个实例并连接同一数据库即可组成集群
+ */
+@Component
+@ConditionalOnProperty(name = "myfunds.cluster.membership", havingValue = "db")
+@Slf4j
+public class DatabaseClusterMembership implements ClusterMembership {
+
+    @Autowired
+    private ServiceNodeMapper serviceNodeMapper;
+
+    @Autowired
+    private ClusterProperties clusterProperties;
+
+    @Value("${server.port:8080}")
+    private int serverPort;
+
+    private String localNodeId;
+
+    @PostConstruct
+    public void init() {
+        localNodeId = clusterProperties.getNodeId();
+        if (localNodeId == null || localNodeId.isEmpty()) {
+            localNodeId = resolveHostName() + ":" + serverPort;
+        }
+        heartbeat();
+        log.info("集群节点注册完成，节点ID：{}", localNodeId);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        // 主动下线，存活节点在下一个刷新周期即可接管分片，无需等待心跳超时
+        serviceNodeMapper.deleteByNodeId(localNodeId);
+        log.info("集群节点已下线，节点ID：{}", localNodeId);
+    }
+
+    @Scheduled(fixedDelayString = "${myfunds.cluster.heartbeat-interval-millis:10000}")
+    public void heartbeat() {
+        try {
+            serviceNodeMapper.upsertHeartbeat(localNodeId);
+        } catch (Exception e) {
+            log.error("写入节点心跳失败，节点ID：{}, 错误原因：{}", localNodeId, e.getMessage());
+        }
+    }
+
+    @Override
+    public String getLocalNodeId() {
+        return localNodeId;
+    }
+
+    @Override
+    public List<String> getLiveNodeIds() {
+        List<String> nodeIds = serviceNodeMapper.selectLiveNodeIds(clusterProperties.getNodeTtlSeconds());
+        if (!nodeIds.contains(localNodeId)) {
+            // 自身心跳写入失败时仍参与分片，避免所有节点同时放弃
+            nodeIds.add(localNodeId);
+        }
+        return nodeIds;
+    }
+
+    private String resolveHostName() {
+        try {
+            return InetAddress.getLocalHost().getHostName();
+        } catch (UnknownHostException e) {
+            return "localhost";
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.example.myfunds.cluster;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.cloud.client.ServiceInstance;
+import org.springframework.cloud.client.discovery.DiscoveryClient;
+import org.springframework.cloud.client.serviceregistry.Registration;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基于注册中心（Eureka）的集群成员发现，需同时开启 eureka.client.enabled
+ * 注册中心剔除失效实例后，其分片在下一个刷新周期由存活实例接管
+ */
+@Component
+@ConditionalOnProperty(name = "myfunds.cluster.membership", havingValue = "discovery")
+public class DiscoveryClusterMembership implements ClusterMembership {
+
+    @Autowired
+    private DiscoveryClient discoveryClient;
+
+    @Autowired
+    private Registration registration;
+
+    @Override
+    public String getLocalNodeId() {
+        return registration.getInstanceId();
+    }
+
+    @Override
+    public List<String> getLiveNodeIds() {
+        List<String> nodeIds = new ArrayList<>();
+        for (ServiceInstance instance : discoveryClient.getInstances(registration.getServiceId())) {
+            nodeIds.add(instance.getInstanceId());
+        }
+        if (!nodeIds.contains(getLocalNodeId())) {
+            nodeIds.add(getLocalNodeId());
+        }
+        return nodeIds;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.myfunds.cluster;
+
+import com.example.myfunds.config.ClusterProperties;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 基金分片路由
+ * 按基金代码在存活节点组成的一致性哈希环上分配归属节点，节点增减时只有相邻区间的基金迁移
+ */
+@Component
+@Slf4j
+public class FundShardRouter {
+
+    @Autowired
+    private ClusterMembership clusterMembership;
+
+    @Autowired
+    private ClusterProperties clusterProperties;
+
+    /**
+     * 最近一次构建哈希环使用的节点列表
+     */
+    private List<String> ringNodeIds = Collections.emptyList();
+
+    private TreeMap<Long, String> ring = new TreeMap<>();
+
+    /**
+     * 从基金代码中筛选出归属当前节点的部分，每次调用都重新读取存活节点
+     */
+    public List<String> filterLocal(List<String> fundCodes) {
+        List<String> localCodes = filterLocalQuietly(fundCodes);
+        log.info("基金分片计算完成，节点ID：{}, 存活节点数：{}, 基金总数：{}, 本节点负责：{}", 
+                clusterMembership.getLocalNodeId(), ringNodeIds.size(), fundCodes.size(), localCodes.size());
+        return localCodes;
+    }
+
+    /**
+     * 同 {@link #filterLocal(List)}，不输出分片日志，供秒级周期的任务使用
+     */
+    public List<String> filterLocalQuietly(List<String> fundCodes) {
+        String localNodeId = clusterMembership.getLocalNodeId();
+        TreeMap<Long, String> currentRing = currentRing();
+        List<String> localCodes = new ArrayList<>();
+        for (String fundCode : fundCodes) {
+            if (localNodeId.equals(ownerOf(currentRing, fundCode))) {
+                localCodes.add(fundCode);
+            }
+        }
+        return localCodes;
+    }
+
+    /**
+     * 判断基金当前是否归属本节点，不输出分片日志
+     */
+    public boolean isLocal(String fundCode) {
+        return clusterMembership.getLocalNodeId().equals(ownerOf(fundCode));
+    }
+
+    /**
+     * 获取基金当前的归属节点
+     */
+    public String ownerOf(String fundCode) {
+        return ownerOf(currentRing(), fundCode);
+    }
+
+    private String ownerOf(TreeMap<Long, String> currentRing, String fundCode) {
+        Map.Entry<Long, String> entry = currentRing.ceilingEntry(hash(fundCode));
+        return entry != null ? entry.getValue() : currentRing.firstEntry().getValue();
+    }
+
+    /**
+     * 存活节点变化时重建哈希环
+     */
+    private synchronized TreeMap<Long, String> currentRing() {
+        List<String> nodeIds = new ArrayList<>(clusterMembership.getLiveNodeIds());
+        Collections.sort(nodeIds);
+        if (!nodeIds.equals(ringNodeIds)) {
+            TreeMap<Long, String> newRing = new TreeMap<>();
+            for (String nodeId : nodeIds) {
+                for (int i = 0; i < clusterProperties.getVirtualNodes(); i++) {
+                    newRing.put(hash(nodeId + "#" + i), nodeId);
+                }
+            }
+            log.info("集群节点变化，重建分片哈希环，节点：{} -> {}", ringNodeIds, nodeIds);
+            ring = newRing;
+            ringNodeIds = nodeIds;
+        }
+        return ring;
+    }
+
+    /**
+     * 取 MD5 摘要前 8 字节作为哈希值，分布均匀且与 JVM 无关，各节点计算结果一致
+     */
+    private long hash(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("MD5").digest(key.getBytes(StandardCharsets.UTF_8));
+            long hash = 0;
+            for (int i = 0; i < 8; i++) {
+                hash = (hash << 8) | (digest[i] & 0xFF);
+            }
+            return hash;
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException("MD5 算法不可用", e);
+        }
+    }
+}
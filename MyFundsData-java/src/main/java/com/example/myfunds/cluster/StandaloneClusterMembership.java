@@ -0,0 +1,27 @@
+package com.example.myfunds.cluster;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 单节点部署，当前节点负责全部基金
+ */
+@Component
+@ConditionalOnProperty(name = "myfunds.cluster.membership", havingValue = "standalone", matchIfMissing = true)
+public class StandaloneClusterMembership implements ClusterMembership {
+
+    private static final String LOCAL_NODE_ID = "standalone";
+
+    @Override
+    public String getLocalNodeId() {
+        return LOCAL_NODE_ID;
+    }
+
+    @Override
+    public List<String> getLiveNodeIds() {
+        return Collections.singletonList(LOCAL_NODE_ID);
+    }
+}
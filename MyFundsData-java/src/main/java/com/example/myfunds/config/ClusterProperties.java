@@ -0,0 +1,39 @@
+package com.example.myfunds.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 集群分片配置
+ * 对应 application.yml 中的 myfunds.cluster 配置项
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "myfunds.cluster")
+public class ClusterProperties {
+    /**
+     * 节点发现方式：standalone-单节点，db-数据库心跳表，discovery-注册中心
+     */
+    private String membership = "standalone";
+
+    /**
+     * 当前节点ID，为空时使用 主机名:端口
+     */
+    private String nodeId;
+
+    /**
+     * 心跳间隔（毫秒），仅 db 方式使用
+     */
+    private long heartbeatIntervalMillis = 10000;
+
+    /**
+     * 节点心跳超时（秒），超时未心跳的节点视为下线，其分片由存活节点接管
+     */
+    private int nodeTtlSeconds = 30;
+
+    /**
+     * 一致性哈希环上每个节点的虚拟节点数
+     */
+    private int virtualNodes = 160;
+}
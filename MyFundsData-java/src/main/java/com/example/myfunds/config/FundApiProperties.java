@@ -0,0 +1,82 @@
+package com.example.myfunds.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+/**
+ * 外部基金数据接口配置
+ * 对应 application.yml 中的 myfunds.api 配置项
+ */
+@Data
+@Component
+@ConfigurationProperties(prefix = "myfunds.api")
+public class FundApiProperties {
+    /**
+     * 数据提供方：simulated-本地模拟数据，http-外部HTTP接口
+     */
+    private String provider = "simulated";
+
+    /**
+     * 基金数据接口地址
+     */
+    private String fundDataUrl;
+
+    /**
+     * 接口密钥，通过 X-Api-Key 请求头传递
+     */
+    private String apiKey;
+
+    /**
+     * 建立连接超时（毫秒）
+     */
+    private long connectTimeoutMillis = 2000;
+
+    /**
+     * 等待响应超时（毫秒）
+     */
+    private long responseTimeoutMillis = 5000;
+
+    /**
+     * 从连接池获取连接的超时（毫秒）
+     */
+    private long connectionRequestTimeoutMillis = 10000;
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxConnections = 200;
+
+    /**
+     * 单个目标主机最大连接数
+     */
+    private int maxConnectionsPerRoute = 200;
+
+    /**
+     * I/O 线程数，默认与CPU核数一致
+     */
+    private int ioThreads = Runtime.getRuntime().availableProcessors();
+
+    /**
+     * 本地桩服务配置
+     */
+    private Stub stub = new Stub();
+
+    @Data
+    public static class Stub {
+        /**
+         * 是否随应用启动内嵌桩服务
+         */
+        private boolean enabled = false;
+
+        /**
+         * 桩服务端口，0 表示随机端口
+         */
+        private int port = 18080;
+
+        /**
+         * 每个请求模拟的响应延迟（毫秒），用于压测
+         */
+        private long latencyMillis = 0;
+    }
+}
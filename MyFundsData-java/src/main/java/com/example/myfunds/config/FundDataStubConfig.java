@@ -0,0 +1,26 @@
+package com.example.myfunds.config;
+
+import com.example.myfunds.provider.FundDataStubServer;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.io.IOException;
+
+/**
+ * 本地基金数据桩服务配置
+ * 开启 myfunds.api.stub.enabled 后随应用启动，配合 myfunds.api.provider=http 使用
+ */
+@Configuration
+@ConditionalOnProperty(name = "myfunds.api.stub.enabled", havingValue = "true")
+public class FundDataStubConfig {
+
+    @Bean(destroyMethod = "stop")
+    public FundDataStubServer fundDataStubServer(FundApiProperties apiProperties, ObjectMapper objectMapper) 
+            throws IOException {
+        FundDataStubServer stubServer = new FundDataStubServer(objectMapper, apiProperties.getStub().getLatencyMillis());
+        stubServer.start(apiProperties.getStub().getPort());
+        return stubServer;
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.myfunds.config;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.ThreadPoolExecutor;
+
+/**
+ * 线程池配置类，为批量任务提供有界的工作线程池
+ */
+@Configuration
+public class ThreadPoolConfig {
+
+    /**
+     * 基金数据刷新线程池
+     * 队列满时由提交线程自行执行，起到背压作用，避免任务无限堆积
+     */
+    @Bean(name = "fundRefreshExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor fundRefreshExecutor(
+            @Value("${myfunds.refresh.pool-size:8}") int poolSize,
+            @Value("${myfunds.refresh.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("fund-refresh-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 实时估值推送线程池
+     * 每个订阅者同一时刻至多有一个发送任务在队列中；队列满时拒绝提交，待发送估值保留到下次推送再合并发送
+     */
+    @Bean(name = "estimateStreamExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor estimateStreamExecutor(
+            @Value("${myfunds.estimate.stream.pool-size:4}") int poolSize,
+            @Value("${myfunds.estimate.stream.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("estimate-stream-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.AbortPolicy());
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 定投计划执行线程池
+     * 每只基金一个任务，不同基金并行执行；队列满时由提交线程自行执行
+     */
+    @Bean(name = "fixedInvestmentExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor fixedInvestmentExecutor(
+            @Value("${myfunds.fixed-investment.pool-size:4}") int poolSize,
+            @Value("${myfunds.fixed-investment.queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("fixed-investment-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 委托结算线程池
+     * 每只基金一个结算任务，不同基金并行结算
+     */
+    @Bean(name = "orderSettlementExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor orderSettlementExecutor(
+            @Value("${myfunds.order.settle-pool-size:4}") int poolSize,
+            @Value("${myfunds.order.settle-queue-capacity:1000}") int queueCapacity) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(queueCapacity);
+        executor.setThreadNamePrefix("order-settlement-");
+        executor.setRejectedExecutionHandler(new ThreadPoolExecutor.CallerRunsPolicy());
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+
+    /**
+     * 持仓核对线程池
+     * 每个用户分区一个任务，分区数量即线程数，提交方等待每页全部分区完成后再读取下一页
+     */
+    @Bean(name = "holdingProjectionExecutor", destroyMethod = "shutdown")
+    public ThreadPoolTaskExecutor holdingProjectionExecutor(
+            @Value("${myfunds.holding.rebuild-partitions:4}") int partitions) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(partitions);
+        executor.setMaxPoolSize(partitions);
+        executor.setThreadNamePrefix("holding-projection-");
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(60);
+        executor.initialize();
+        return executor;
+    }
+}
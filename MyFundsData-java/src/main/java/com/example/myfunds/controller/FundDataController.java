@@ -1,13 +1,18 @@
 package com.example.myfunds.controller;
 
+import com.example.myfunds.dto.FundRefreshSummary;
 import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundNavHistory;
 import com.example.myfunds.entity.FundStock;
 import com.example.myfunds.service.FundDataService;
+import com.example.myfunds.service.FundNavHistoryService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -22,6 +27,9 @@ public class FundDataController {
     @Autowired
     private FundDataService fundDataService;
 
+    @Autowired
+    private FundNavHistoryService fundNavHistoryService;
+
     /**
      * 获取基金基本信息
      * @param fundCode 基金代码
@@ -62,6 +70,69 @@ public class FundDataController {
         }
     }
 
+    /**
+     * 获取基金各报告期的历史持仓快照
+     * @param fundCode 基金代码
+     * @return 历史持仓列表，按报告期倒序
+     */
+    @GetMapping("/holdings/{fundCode}/history")
+    public ResponseEntity<List<FundStock>> getFundHoldingsHistory(@PathVariable String fundCode) {
+        log.info("开始获取基金历史持仓快照，基金代码：{}", fundCode);
+        
+        try {
+            List<FundStock> history = fundDataService.getFundStockHistory(fundCode);
+            log.info("获取基金历史持仓快照成功，基金代码：{}, 记录数量：{}", fundCode, history.size());
+            return ResponseEntity.ok(history);
+        } catch (Exception e) {
+            log.error("获取基金历史持仓快照失败，基金代码：{}, 错误原因：{}", fundCode, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 获取基金净值历史
+     * @param fundCode 基金代码
+     * @param from 开始日期（含），默认一年前
+     * @param to 结束日期（含），默认今天
+     * @return 净值历史，按日期升序
+     */
+    @GetMapping("/nav-history/{fundCode}")
+    public ResponseEntity<List<FundNavHistory>> getFundNavHistory(
+            @PathVariable String fundCode,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to) {
+        LocalDate toDate = to != null ? to : LocalDate.now();
+        LocalDate fromDate = from != null ? from : toDate.minusYears(1);
+        log.info("开始获取基金净值历史，基金代码：{}, 日期区间：{} ~ {}", fundCode, fromDate, toDate);
+        
+        try {
+            List<FundNavHistory> history = fundNavHistoryService.getNavHistory(fundCode, fromDate, toDate);
+            log.info("获取基金净值历史成功，基金代码：{}, 记录数量：{}", fundCode, history.size());
+            return ResponseEntity.ok(history);
+        } catch (Exception e) {
+            log.error("获取基金净值历史失败，基金代码：{}, 错误原因：{}", fundCode, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 从数据库导出净值历史文件，供分析和回测使用
+     * @return 导出的基金数量
+     */
+    @PostMapping("/nav-history/export")
+    public ResponseEntity<Integer> exportNavHistoryFiles() {
+        log.info("开始导出净值历史文件");
+        
+        try {
+            int exported = fundNavHistoryService.exportNavFiles();
+            log.info("导出净值历史文件完成，基金数量：{}", exported);
+            return ResponseEntity.ok(exported);
+        } catch (Exception e) {
+            log.error("导出净值历史文件失败，错误原因：{}", e.getMessage());
+            throw e;
+        }
+    }
+
     /**
      * 刷新基金数据
      * @param fundCode 基金代码
@@ -84,16 +155,17 @@ public class FundDataController {
 
     /**
      * 更新所有基金数据
-     * @return 更新结果
+     * @return 刷新结果汇总
      */
     @PostMapping("/update-all")
-    public ResponseEntity<String> updateAllFunds() {
+    public ResponseEntity<FundRefreshSummary> updateAllFunds() {
         log.info("开始更新所有基金数据");
         
         try {
-            fundDataService.updateAllFundsData();
-            log.info("所有基金数据更新完成");
-            return ResponseEntity.ok("所有基金数据更新完成");
+            FundRefreshSummary summary = fundDataService.updateAllFundsData();
+            log.info("所有基金数据更新完成，成功：{}, 失败：{}, 耗时：{}ms", 
+                    summary.getSucceeded(), summary.getFailed(), summary.getElapsedMillis());
+            return ResponseEntity.ok(summary);
         } catch (Exception e) {
             log.error("更新所有基金数据失败，错误原因：{}", e.getMessage());
             throw e;
@@ -0,0 +1,43 @@
+package com.example.myfunds.controller;
+
+import com.example.myfunds.estimate.FundEstimateBroadcaster;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+/**
+ * 基金实时估值推送控制器
+ * 以 Server-Sent Events 推送订阅基金的估值变化，事件名为 estimate，数据为 FundEstimate
+ */
+@RestController
+@RequestMapping("/api/fund")
+@Slf4j
+public class FundEstimateStreamController {
+
+    @Autowired
+    private FundEstimateBroadcaster fundEstimateBroadcaster;
+
+    /**
+     * 订阅基金实时估值
+     * @param codes 基金代码，多个以逗号分隔
+     * @return 事件流
+     */
+    @GetMapping(value = "/estimates/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter streamEstimates(@RequestParam List<String> codes) {
+        log.info("订阅基金实时估值，基金代码：{}", codes);
+        
+        try {
+            return fundEstimateBroadcaster.subscribe(codes);
+        } catch (Exception e) {
+            log.error("订阅基金实时估值失败，基金代码：{}, 错误原因：{}", codes, e.getMessage());
+            throw e;
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package com.example.myfunds.controller;
 
+import com.example.myfunds.dto.FixedInvestmentRunSummary;
+import com.example.myfunds.dto.HoldingAuditResult;
+import com.example.myfunds.dto.HoldingRebuildSummary;
+import com.example.myfunds.dto.OrderSettlementSummary;
+import com.example.myfunds.dto.TransactionPage;
 import com.example.myfunds.entity.FixedInvestment;
 import com.example.myfunds.entity.FundTransaction;
 import com.example.myfunds.entity.UserFund;
+import com.example.myfunds.entity.UserPortfolio;
 import com.example.myfunds.service.FundTradeService;
+import com.example.myfunds.service.HoldingProjectionService;
+import com.example.myfunds.service.PortfolioService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.List;
 
 /**
@@ -23,6 +33,12 @@ public class FundTradeController {
     @Autowired
     private FundTradeService fundTradeService;
 
+    @Autowired
+    private HoldingProjectionService holdingProjectionService;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
     /**
      * 手动添加基金持仓
      * @param userId 用户ID
@@ -57,7 +73,7 @@ public class FundTradeController {
      * @param userId 用户ID
      * @param fundCode 基金代码
      * @param amount 加仓金额
-     * @return 交易记录
+     * @return 待结算的买入委托，ID 即委托编号
      */
     @PostMapping("/buy")
     public ResponseEntity<FundTransaction> buyFund(
@@ -69,7 +85,7 @@ public class FundTradeController {
         
         try {
             FundTransaction transaction = fundTradeService.buyFund(userId, fundCode, amount);
-            log.info("基金加仓操作成功，用户ID：{}, 基金代码：{}, 交易ID：{}, 交易金额：{}", 
+            log.info("买入委托已提交，用户ID：{}, 基金代码：{}, 委托ID：{}, 委托金额：{}", 
                     userId, fundCode, transaction.getId(), transaction.getTransactionAmount());
             return ResponseEntity.ok(transaction);
         } catch (Exception e) {
@@ -84,7 +100,7 @@ public class FundTradeController {
      * @param userId 用户ID
      * @param fundCode 基金代码
      * @param shares 减仓份额
-     * @return 交易记录
+     * @return 待结算的卖出委托，ID 即委托编号
      */
     @PostMapping("/sell")
     public ResponseEntity<FundTransaction> sellFund(
@@ -96,8 +112,8 @@ public class FundTradeController {
         
         try {
             FundTransaction transaction = fundTradeService.sellFund(userId, fundCode, shares);
-            log.info("基金减仓操作成功，用户ID：{}, 基金代码：{}, 交易ID：{}, 交易金额：{}", 
-                    userId, fundCode, transaction.getId(), transaction.getTransactionAmount());
+            log.info("卖出委托已提交，用户ID：{}, 基金代码：{}, 委托ID：{}, 委托份额：{}", 
+                    userId, fundCode, transaction.getId(), transaction.getTransactionShares());
             return ResponseEntity.ok(transaction);
         } catch (Exception e) {
             log.error("基金减仓操作失败，用户ID：{}, 基金代码：{}, 错误原因：{}", 
@@ -215,18 +231,51 @@ public class FundTradeController {
     }
 
     /**
-     * 获取用户交易记录
+     * 获取用户资产汇总
+     * @param userId 用户ID
+     * @return 总成本、总市值、总盈亏、当日预估收益及持仓数量
+     */
+    @GetMapping("/portfolio/{userId}")
+    public ResponseEntity<UserPortfolio> getUserPortfolio(@PathVariable Long userId) {
+        log.info("开始获取用户资产汇总，用户ID：{}", userId);
+        
+        try {
+            UserPortfolio portfolio = portfolioService.getPortfolio(userId);
+            log.info("获取用户资产汇总成功，用户ID：{}, 持仓数量：{}, 总市值：{}", 
+                    userId, portfolio.getHoldingCount(), portfolio.getMarketValue());
+            return ResponseEntity.ok(portfolio);
+        } catch (Exception e) {
+            log.error("获取用户资产汇总失败，用户ID：{}, 错误原因：{}", userId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 按游标分页获取用户交易记录，按交易时间倒序
      * @param userId 用户ID
-     * @return 用户交易记录列表
+     * @param fundCode 基金代码，可选
+     * @param type 交易类型，可选
+     * @param from 起始日期（含），可选
+     * @param to 截止日期（含），可选
+     * @param cursor 上一页返回的 nextCursor，为空时读取第一页
+     * @param limit 每页数量，默认 50，最大 200
+     * @return 用户交易记录分页
      */
     @GetMapping("/transactions/{userId}")
-    public ResponseEntity<List<FundTransaction>> getUserTransactions(@PathVariable Long userId) {
-        log.info("开始获取用户交易记录，用户ID：{}", userId);
+    public ResponseEntity<TransactionPage> getUserTransactions(
+            @PathVariable Long userId,
+            @RequestParam(required = false) String fundCode,
+            @RequestParam(required = false) String type,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer limit) {
+        log.info("开始获取用户交易记录，用户ID：{}, 游标：{}", userId, cursor);
         
         try {
-            List<FundTransaction> transactions = fundTradeService.getUserTransactions(userId);
-            log.info("获取用户交易记录成功，用户ID：{}, 交易记录数量：{}", userId, transactions.size());
-            return ResponseEntity.ok(transactions);
+            TransactionPage page = fundTradeService.getUserTransactions(userId, fundCode, type, from, to, cursor, limit);
+            log.info("获取用户交易记录成功，用户ID：{}, 本页数量：{}", userId, page.getItems().size());
+            return ResponseEntity.ok(page);
         } catch (Exception e) {
             log.error("获取用户交易记录失败，用户ID：{}, 错误原因：{}", userId, e.getMessage());
             throw e;
@@ -257,16 +306,78 @@ public class FundTradeController {
      * @return 执行结果
      */
     @PostMapping("/fixed-investment/execute")
-    public ResponseEntity<String> executeFixedInvestments() {
+    public ResponseEntity<FixedInvestmentRunSummary> executeFixedInvestments() {
         log.info("开始执行定投计划");
         
         try {
-            fundTradeService.executeFixedInvestments();
-            log.info("定投计划执行完成");
-            return ResponseEntity.ok("定投计划执行完成");
+            FixedInvestmentRunSummary summary = fundTradeService.executeFixedInvestments();
+            log.info("定投计划执行完成，成功：{}, 失败：{}", summary.getSucceeded(), summary.getFailed());
+            return ResponseEntity.ok(summary);
         } catch (Exception e) {
             log.error("执行定投计划失败，错误原因：{}", e.getMessage());
             throw e;
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * 立即结算最近一个已收盘交易日收盘前提交的待结算委托
+     * @return 结算结果
+     */
+    @PostMapping("/orders/settle")
+    public ResponseEntity<OrderSettlementSummary> settlePendingOrders() {
+        log.info("开始结算待结算委托");
+        
+        try {
+            OrderSettlementSummary summary = fundTradeService.settlePendingOrders();
+            log.info("委托结算完成，成功：{}, 失败：{}", summary.getSucceeded(), summary.getFailed());
+            return ResponseEntity.ok(summary);
+        } catch (Exception e) {
+            log.error("结算委托失败，错误原因：{}", e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 核对用户持仓与交易记录投影
+     * @param userId 用户ID
+     * @param repair 是否以投影修正持仓并刷新快照，为 false 时只核对不写入
+     * @return 核对结果
+     */
+    @PostMapping("/holdings/audit/{userId}")
+    public ResponseEntity<HoldingAuditResult> auditHoldings(
+            @PathVariable Long userId,
+            @RequestParam(defaultValue = "false") boolean repair) {
+        log.info("开始核对用户持仓，用户ID：{}, 修正：{}", userId, repair);
+        
+        try {
+            HoldingAuditResult result = holdingProjectionService.auditUser(userId, repair);
+            log.info("用户持仓核对完成，用户ID：{}, 不一致持仓：{}, 已修正：{}", 
+                    userId, result.getMismatchedFundIds().size(), result.getRepairedHoldings());
+            return ResponseEntity.ok(result);
+        } catch (Exception e) {
+            log.error("核对用户持仓失败，用户ID：{}, 错误原因：{}", userId, e.getMessage());
+            throw e;
+        }
+    }
+
+    /**
+     * 从交易记录重建全部用户持仓
+     * @param repair 是否以投影修正持仓并刷新快照，为 false 时只核对不写入
+     * @return 重建结果
+     */
+    @PostMapping("/holdings/rebuild")
+    public ResponseEntity<HoldingRebuildSummary> rebuildHoldings(
+            @RequestParam(defaultValue = "false") boolean repair) {
+        log.info("开始重建用户持仓，修正：{}", repair);
+        
+        try {
+            HoldingRebuildSummary summary = holdingProjectionService.rebuildAll(repair, repair);
+            log.info("用户持仓重建完成，用户数量：{}, 不一致持仓：{}, 已修正：{}", 
+                    summary.getUserCount(), summary.getMismatchedHoldings(), summary.getRepairedHoldings());
+            return ResponseEntity.ok(summary);
+        } catch (Exception e) {
+            log.error("重建用户持仓失败，错误原因：{}", e.getMessage());
+            throw e;
+        }
+    }
+}
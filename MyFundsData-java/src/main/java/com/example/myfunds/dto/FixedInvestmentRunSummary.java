@@ -0,0 +1,63 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 定投计划批量执行结果汇总
+ */
+@Data
+public class FixedInvestmentRunSummary {
+    /**
+     * 到期的定投计划数量
+     */
+    private int total;
+
+    /**
+     * 执行成功数量
+     */
+    private int succeeded;
+
+    /**
+     * 执行失败数量
+     */
+    private int failed;
+
+    /**
+     * 执行的定投期数（含补投）
+     */
+    private int executedPeriods;
+
+    /**
+     * 按补投策略跳过的定投期数
+     */
+    private int skippedPeriods;
+
+    /**
+     * 涉及的基金数量
+     */
+    private int fundCount;
+
+    /**
+     * 执行失败的定投计划ID
+     */
+    private List<Long> failedPlanIds = new ArrayList<>();
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
@@ -0,0 +1,46 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 基金实时估值
+ */
+@Data
+public class FundEstimate {
+    /**
+     * 基金ID
+     */
+    private Long fundId;
+
+    /**
+     * 基金代码
+     */
+    private String fundCode;
+
+    /**
+     * 最新净值
+     */
+    private Double latestNav;
+
+    /**
+     * 当日预估涨跌幅（%）
+     */
+    private Double estimatedDayGrowth;
+
+    /**
+     * 当日预估净值
+     */
+    private Double estimatedNav;
+
+    /**
+     * 当日预估收益（以最新净值买入10000元计）
+     */
+    private Double estimatedProfit;
+
+    /**
+     * 估值计算时间
+     */
+    private LocalDateTime estimateTime;
+}
@@ -0,0 +1,31 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+import java.time.LocalDate;
+
+/**
+ * 基金净值信息，仅包含交易定价所需字段
+ */
+@Data
+public class FundNav {
+    /**
+     * 基金代码
+     */
+    private String fundCode;
+
+    /**
+     * 最新净值
+     */
+    private Double latestNav;
+
+    /**
+     * 日涨幅（%）
+     */
+    private Double dayGrowth;
+
+    /**
+     * 净值日期
+     */
+    private LocalDate navDate;
+}
@@ -0,0 +1,63 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基金批量刷新结果汇总
+ */
+@Data
+public class FundRefreshSummary {
+    /**
+     * 本次提交的基金数量
+     */
+    private int total;
+
+    /**
+     * 刷新成功数量
+     */
+    private int succeeded;
+
+    /**
+     * 刷新失败数量
+     */
+    private int failed;
+
+    /**
+     * 跳过数量（空代码、重复代码等）
+     */
+    private int skipped;
+
+    /**
+     * 刷新失败的基金代码
+     */
+    private List<String> failedFundCodes = new ArrayList<>();
+
+    /**
+     * 按新净值重估的持仓数量
+     */
+    private int revaluedHoldings;
+
+    /**
+     * 持仓重估耗时（毫秒）
+     */
+    private long revalueElapsedMillis;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
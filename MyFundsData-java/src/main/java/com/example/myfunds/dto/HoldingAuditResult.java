@@ -0,0 +1,47 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 单个用户的持仓核对结果
+ */
+@Data
+public class HoldingAuditResult {
+    /**
+     * 用户ID
+     */
+    private Long userId;
+
+    /**
+     * 回放起点的快照交易ID，没有快照时为 0
+     */
+    private long snapshotTransactionId;
+
+    /**
+     * 本次回放的交易数量
+     */
+    private int replayedTransactions;
+
+    /**
+     * 核对的持仓数量（投影与持仓表的并集）
+     */
+    private int checkedHoldings;
+
+    /**
+     * 与交易记录投影不一致的基金ID
+     */
+    private List<Long> mismatchedFundIds = new ArrayList<>();
+
+    /**
+     * 已按投影修正的持仓数量
+     */
+    private int repairedHoldings;
+
+    /**
+     * 新快照的交易ID，未刷新快照（包括只核对不修正）时与 snapshotTransactionId 相同
+     */
+    private long newSnapshotTransactionId;
+}
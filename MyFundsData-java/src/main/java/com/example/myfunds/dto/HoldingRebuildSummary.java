@@ -0,0 +1,66 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 全量持仓核对与重建结果汇总
+ */
+@Data
+public class HoldingRebuildSummary {
+    /**
+     * 是否按投影修正持仓表
+     */
+    private boolean repair;
+
+    /**
+     * 并行分区数量
+     */
+    private int partitions;
+
+    /**
+     * 核对的用户数量
+     */
+    private int userCount;
+
+    /**
+     * 核对失败的用户数量
+     */
+    private int failedUsers;
+
+    /**
+     * 存在不一致持仓的用户数量
+     */
+    private int mismatchedUsers;
+
+    /**
+     * 不一致的持仓数量
+     */
+    private int mismatchedHoldings;
+
+    /**
+     * 已修正的持仓数量
+     */
+    private int repairedHoldings;
+
+    /**
+     * 回放的交易总数
+     */
+    private long replayedTransactions;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
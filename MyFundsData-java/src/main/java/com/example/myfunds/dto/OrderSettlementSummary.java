@@ -0,0 +1,56 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 委托结算结果汇总
+ */
+@Data
+public class OrderSettlementSummary {
+    /**
+     * 委托截止时间，在此之前提交的委托参与本次结算
+     */
+    private LocalDateTime cutoffTime;
+
+    /**
+     * 参与结算的委托数量
+     */
+    private int total;
+
+    /**
+     * 确认成功数量
+     */
+    private int succeeded;
+
+    /**
+     * 确认失败数量（如卖出时持仓份额不足）
+     */
+    private int failed;
+
+    /**
+     * 因净值不可用留待下次结算的基金数量
+     */
+    private int deferredFundCount;
+
+    /**
+     * 涉及的基金数量
+     */
+    private int fundCount;
+
+    /**
+     * 开始时间
+     */
+    private LocalDateTime startTime;
+
+    /**
+     * 结束时间
+     */
+    private LocalDateTime endTime;
+
+    /**
+     * 总耗时（毫秒）
+     */
+    private long elapsedMillis;
+}
@@ -0,0 +1,48 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+/**
+ * 定时任务运行状态
+ */
+@Data
+public class ScheduledTaskStatus {
+    /**
+     * 任务名称
+     */
+    private String taskName;
+
+    /**
+     * 最近一次执行时间
+     */
+    private LocalDateTime lastRunTime;
+
+    /**
+     * 最近一次执行结果
+     */
+    private String lastResult;
+
+    /**
+     * 最近一次跳过时间
+     */
+    private LocalDateTime lastSkipTime;
+
+    /**
+     * 最近一次跳过原因
+     */
+    private String lastSkipReason;
+
+    /**
+     * 下一次计划执行时间
+     */
+    private LocalDateTime nextPlannedRun;
+
+    public ScheduledTaskStatus() {
+    }
+
+    public ScheduledTaskStatus(String taskName) {
+        this.taskName = taskName;
+    }
+}
@@ -0,0 +1,24 @@
+package com.example.myfunds.dto;
+
+import lombok.Data;
+
+/**
+ * 股票行情，同一刷新周期内由所有持有该股票的基金共享
+ */
+@Data
+public class StockQuote {
+    /**
+     * 股票代码
+     */
+    private String stockCode;
+
+    /**
+     * 最新股价
+     */
+    private Double stockPrice;
+
+    /**
+     * 日涨跌幅（%）
+     */
+    private Double dayGrowth;
+}
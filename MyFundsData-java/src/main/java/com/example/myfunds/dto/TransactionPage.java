@@ -0,0 +1,28 @@
+package com.example.myfunds.dto;
+
+import com.example.myfunds.entity.FundTransaction;
+import lombok.Data;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 交易记录分页结果，按交易时间、交易ID倒序
+ */
+@Data
+public class TransactionPage {
+    /**
+     * 本页交易记录
+     */
+    private List<FundTransaction> items = new ArrayList<>();
+
+    /**
+     * 是否还有下一页
+     */
+    private boolean hasMore;
+
+    /**
+     * 下一页游标，原样作为 cursor 参数传回；没有下一页时为空
+     */
+    private String nextCursor;
+}
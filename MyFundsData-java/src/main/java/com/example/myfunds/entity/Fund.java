@@ -1,6 +1,7 @@
 package com.example.myfunds.entity;
 
 import lombok.Data;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 
 @Data
@@ -13,6 +14,7 @@ public class Fund {
     private LocalDateTime establishDate;
     private Double latestNav;
     private Double dayGrowth;
+    private LocalDate navDate; // 最新净值对应的净值日期
     private Double weekGrowth;
     private Double monthGrowth;
     private Double quarterGrowth;
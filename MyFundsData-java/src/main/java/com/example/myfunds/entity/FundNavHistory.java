@@ -0,0 +1,14 @@
+package com.example.myfunds.entity;
+
+import lombok.Data;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Data
+public class FundNavHistory {
+    private Long fundId;
+    private LocalDate navDate;
+    private Double nav;
+    private Double dayGrowth;
+    private LocalDateTime createdTime;
+}
@@ -8,7 +8,7 @@ public class FundTransaction {
     private Long id;
     private Fund fund;
     private Long userId;
-    private String transactionType; // BUY, SELL, FIXED_INVESTMENT
+    private String transactionType; // BUY, SELL, FIXED_INVESTMENT, MANUAL
     private Double transactionAmount;
     private Double transactionShares;
     private Double transactionPrice;
@@ -14,6 +14,7 @@ public class UserFund {
     private Double currentValue;
     private Double profitLoss;
     private Double profitLossRatio;
+    private Long version; // 版本号，按读取时的版本条件更新，冲突时重试
     private LocalDateTime createdTime;
     private LocalDateTime updatedTime;
 }
\ No newline at end of file
@@ -0,0 +1,14 @@
+package com.example.myfunds.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class UserHoldingSnapshot {
+    private Long userId;
+    private Long fundId;
+    private Double totalShares;
+    private Double totalCost;
+    private Long lastTransactionId; // 快照包含的最后一笔交易ID
+    private LocalDateTime snapshotTime;
+}
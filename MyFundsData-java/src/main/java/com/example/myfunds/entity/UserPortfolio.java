@@ -0,0 +1,16 @@
+package com.example.myfunds.entity;
+
+import lombok.Data;
+import java.time.LocalDateTime;
+
+@Data
+public class UserPortfolio {
+    private Long userId;
+    private Integer holdingCount;
+    private Double totalCost;
+    private Double marketValue;
+    private Double profitLoss;
+    private Double profitLossRatio;
+    private Double estimatedDayProfit; // 按基金当日预估涨跌幅计算
+    private LocalDateTime updatedTime;
+}
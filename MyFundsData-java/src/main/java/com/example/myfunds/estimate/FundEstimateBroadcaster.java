@@ -0,0 +1,281 @@
+package com.example.myfunds.estimate;
+
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.dto.FundEstimate;
+import com.example.myfunds.entity.Fund;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 基金实时估值推送
+ * 估值引擎通知变化的基金后，按固定周期对每只变化的基金只读取一次估值，再分发给所有订阅者；
+ * 每个订阅者只保留每只基金的最新估值，发送跟不上时中间的估值被覆盖丢弃，服务端内存不随慢客户端增长；
+ * 单次发送阻塞超过 send-timeout-millis 的连接被移出订阅并在发送返回后结束，避免慢客户端长期占用发送线程
+ */
+@Component
+@Slf4j
+public class FundEstimateBroadcaster {
+
+    @Autowired
+    private FundEstimateEngine fundEstimateEngine;
+
+    @Autowired
+    private FundCache fundCache;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("estimateStreamExecutor")
+    private Executor estimateStreamExecutor;
+
+    /**
+     * 订阅连接超时时间，超时后客户端（EventSource）会自动重连
+     */
+    @Value("${myfunds.estimate.stream.timeout-millis:1800000}")
+    private long streamTimeoutMillis;
+
+    /**
+     * 单次发送的超时时间，超过后断开该连接
+     */
+    @Value("${myfunds.estimate.stream.send-timeout-millis:10000}")
+    private long sendTimeoutMillis;
+
+    /**
+     * 单个连接最多订阅的基金数量
+     */
+    @Value("${myfunds.estimate.stream.max-funds-per-subscriber:200}")
+    private int maxFundsPerSubscriber;
+
+    /**
+     * 基金ID -> 订阅该基金的连接
+     */
+    private final Map<Long, Set<Subscriber>> subscribersByFund = new ConcurrentHashMap<>();
+
+    /**
+     * 自上次推送以来估值发生变化且有订阅者的基金
+     */
+    private final Set<Long> changedFundIds = ConcurrentHashMap.newKeySet();
+
+    @PostConstruct
+    public void init() {
+        fundEstimateEngine.addChangeListener(fundId -> {
+            if (subscribersByFund.containsKey(fundId)) {
+                changedFundIds.add(fundId);
+            }
+        });
+        Gauge.builder("myfunds.estimate.stream.subscribers", this, FundEstimateBroadcaster::getSubscriberCount)
+                .description("基金实时估值订阅连接数")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 订阅基金估值，订阅后立即推送一次当前估值
+     * @param fundCodes 基金代码，不存在的基金忽略
+     */
+    public SseEmitter subscribe(List<String> fundCodes) {
+        Set<Long> fundIds = new LinkedHashSet<>();
+        for (String fundCode : fundCodes) {
+            if (fundIds.size() >= maxFundsPerSubscriber) {
+                break;
+            }
+            Fund fund = fundCache.getByCode(fundCode.trim());
+            if (fund != null) {
+                fundIds.add(fund.getId());
+            }
+        }
+        if (fundIds.isEmpty()) {
+            throw new RuntimeException("未找到可订阅的基金");
+        }
+
+        Subscriber subscriber = new Subscriber(new SseEmitter(streamTimeoutMillis), fundIds);
+        subscriber.emitter.onCompletion(() -> unsubscribe(subscriber));
+        subscriber.emitter.onTimeout(() -> unsubscribe(subscriber));
+        subscriber.emitter.onError(e -> unsubscribe(subscriber));
+        for (Long fundId : fundIds) {
+            subscribersByFund.computeIfAbsent(fundId, id -> ConcurrentHashMap.newKeySet()).add(subscriber);
+            FundEstimate estimate = fundEstimateEngine.getEstimate(fundId);
+            if (estimate != null) {
+                subscriber.offer(estimate);
+            }
+        }
+        log.debug("新增基金估值订阅，基金数量：{}", fundIds.size());
+        return subscriber.emitter;
+    }
+
+    /**
+     * 将变化的基金估值分发给订阅者，每只基金每个周期只读取一次估值
+     */
+    @Scheduled(fixedDelayString = "${myfunds.estimate.stream.tick-millis:1000}")
+    public void publishChanges() {
+        checkSubscribers();
+        Iterator<Long> iterator = changedFundIds.iterator();
+        while (iterator.hasNext()) {
+            Long fundId = iterator.next();
+            iterator.remove();
+            Set<Subscriber> subscribers = subscribersByFund.get(fundId);
+            if (subscribers == null || subscribers.isEmpty()) {
+                continue;
+            }
+            FundEstimate estimate = fundEstimateEngine.getEstimate(fundId);
+            if (estimate == null) {
+                continue;
+            }
+            for (Subscriber subscriber : subscribers) {
+                subscriber.offer(estimate);
+            }
+        }
+    }
+
+    /**
+     * 断开发送超时的连接；上个周期因发送队列已满未能提交的连接重新提交发送
+     */
+    private void checkSubscribers() {
+        long now = System.currentTimeMillis();
+        for (Subscriber subscriber : distinctSubscribers()) {
+            long sendStartedAt = subscriber.sendStartedAt;
+            if (sendStartedAt > 0 && now - sendStartedAt > sendTimeoutMillis) {
+                log.warn("基金估值推送发送超时，断开连接，已阻塞：{}ms", now - sendStartedAt);
+                subscriber.evict();
+            } else if (!subscriber.pending.isEmpty()) {
+                subscriber.scheduleDrain();
+            }
+        }
+    }
+
+    /**
+     * 当前订阅连接数
+     */
+    public int getSubscriberCount() {
+        return distinctSubscribers().size();
+    }
+
+    private Set<Subscriber> distinctSubscribers() {
+        Set<Subscriber> distinct = new LinkedHashSet<>();
+        for (Set<Subscriber> subscribers : subscribersByFund.values()) {
+            distinct.addAll(subscribers);
+        }
+        return distinct;
+    }
+
+    private void unsubscribe(Subscriber subscriber) {
+        for (Long fundId : subscriber.fundIds) {
+            subscribersByFund.computeIfPresent(fundId, (id, subscribers) -> {
+                subscribers.remove(subscriber);
+                return subscribers.isEmpty() ? null : subscribers;
+            });
+        }
+    }
+
+    /**
+     * 单个订阅连接
+     */
+    private class Subscriber {
+        private final SseEmitter emitter;
+        private final Set<Long> fundIds;
+
+        /**
+         * 待发送的估值，每只基金只保留最新一条
+         */
+        private final Map<Long, FundEstimate> pending = new ConcurrentHashMap<>();
+
+        /**
+         * 是否已有发送任务在排队或执行，保证同一连接串行发送
+         */
+        private final AtomicBoolean draining = new AtomicBoolean();
+
+        /**
+         * 当前发送开始时间，未在发送时为 0
+         */
+        private volatile long sendStartedAt;
+
+        /**
+         * 已因发送超时被移出订阅；阻塞中的发送返回后由发送线程结束连接
+         */
+        private volatile boolean evicted;
+
+        Subscriber(SseEmitter emitter, Set<Long> fundIds) {
+            this.emitter = emitter;
+            this.fundIds = fundIds;
+        }
+
+        void offer(FundEstimate estimate) {
+            pending.put(estimate.getFundId(), estimate);
+            scheduleDrain();
+        }
+
+        /**
+         * 移出订阅并丢弃待发送估值；SseEmitter 的发送与结束互斥，不能在此处结束连接，否则会随阻塞的发送一起等待
+         */
+        void evict() {
+            evicted = true;
+            pending.clear();
+            unsubscribe(this);
+        }
+
+        private void scheduleDrain() {
+            if (!evicted && draining.compareAndSet(false, true)) {
+                try {
+                    estimateStreamExecutor.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    draining.set(false);
+                }
+            }
+        }
+
+        private void drain() {
+            try {
+                List<Long> fundIdsToSend = new ArrayList<>(pending.keySet());
+                for (Long fundId : fundIdsToSend) {
+                    if (evicted) {
+                        break;
+                    }
+                    FundEstimate estimate = pending.remove(fundId);
+                    if (estimate != null) {
+                        sendStartedAt = System.currentTimeMillis();
+                        try {
+                            emitter.send(SseEmitter.event().name("estimate").data(estimate));
+                        } finally {
+                            sendStartedAt = 0;
+                        }
+                    }
+                }
+                if (evicted) {
+                    emitter.complete();
+                    return;
+                }
+            } catch (IOException | IllegalStateException e) {
+                // 客户端已断开
+                pending.clear();
+                unsubscribe(this);
+                emitter.completeWithError(e);
+                return;
+            } finally {
+                draining.set(false);
+            }
+            if (!pending.isEmpty()) {
+                scheduleDrain();
+            }
+        }
+    }
+}
@@ -0,0 +1,456 @@
+package com.example.myfunds.estimate;
+
+import com.example.myfunds.calendar.TradingCalendar;
+import com.example.myfunds.cluster.FundShardRouter;
+import com.example.myfunds.dto.FundEstimate;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundStock;
+import com.example.myfunds.mapper.FundMapper;
+import com.example.myfunds.mapper.FundStockMapper;
+import com.example.myfunds.service.PortfolioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+
+/**
+ * 基金实时估值引擎
+ * 在内存中维护 股票代码 -> 持有该股票的基金及持仓权重 的倒排索引，
+ * 股票涨跌幅变化时只按差值调整持有该股票的基金，复杂度为 O(持有该股票的基金数)，无需重新读取 FUND_STOCK
+ */
+@Component
+@Slf4j
+public class FundEstimateEngine {
+
+    /**
+     * 估算收益使用的投资金额
+     */
+    private static final double ESTIMATE_INVESTMENT_AMOUNT = 10000.0;
+
+    @Autowired
+    private FundMapper fundMapper;
+
+    @Autowired
+    private FundStockMapper fundStockMapper;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private TradingCalendar tradingCalendar;
+
+    @Autowired
+    private FundShardRouter fundShardRouter;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    /**
+     * 估值写回间隔，收盘后再写回一个间隔内产生的估值
+     */
+    @Value("${myfunds.estimate.flush-interval-millis:10000}")
+    private long flushIntervalMillis;
+
+    private TransactionTemplate flushTransactionTemplate;
+
+    /**
+     * 倒排索引：股票代码 -> 持仓位置列表
+     */
+    private final Map<String, List<Position>> positionsByStock = new HashMap<>();
+
+    /**
+     * 基金ID -> 估值状态
+     */
+    private final Map<Long, FundState> fundStates = new ConcurrentHashMap<>();
+
+    /**
+     * 股票代码 -> 最近一次的日涨跌幅（%）
+     */
+    private final Map<String, Double> stockGrowths = new ConcurrentHashMap<>();
+
+    /**
+     * 读锁：行情更新；写锁：索引结构调整及全量估值
+     */
+    private final ReadWriteLock indexLock = new ReentrantReadWriteLock();
+
+    /**
+     * 全量估值使用的持仓稀疏矩阵，持仓变化后在下一次全量估值时重建
+     */
+    private HoldingsMatrix holdingsMatrix;
+
+    /**
+     * 矩阵行号 -> 基金估值状态
+     */
+    private FundState[] matrixRows;
+
+    private boolean matrixStale = true;
+
+    /**
+     * 估值变化监听器，参数为基金ID
+     */
+    private final List<Consumer<Long>> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * 应用启动后从数据库加载全部基金及最新持仓，构建索引
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long start = System.currentTimeMillis();
+        List<Fund> funds = fundMapper.selectAll();
+        Map<Long, List<FundStock>> holdingsByFund = new HashMap<>();
+        for (FundStock stock : fundStockMapper.selectAllLatest()) {
+            holdingsByFund.computeIfAbsent(stock.getFund().getId(), id -> new ArrayList<>()).add(stock);
+        }
+
+        indexLock.writeLock().lock();
+        try {
+            positionsByStock.clear();
+            fundStates.clear();
+            stockGrowths.clear();
+            for (Fund fund : funds) {
+                List<FundStock> holdings = holdingsByFund.getOrDefault(fund.getId(), Collections.emptyList());
+                for (FundStock stock : holdings) {
+                    if (stock.getDayGrowth() != null) {
+                        stockGrowths.put(stock.getStockCode(), stock.getDayGrowth());
+                    }
+                }
+                indexFund(fund, holdings);
+            }
+            rebuildMatrix();
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        log.info("基金估值索引构建完成，基金数量：{}, 股票数量：{}, 持仓记录数：{}, 耗时：{}ms", 
+                fundStates.size(), positionsByStock.size(), holdingsMatrix.getEntryCount(), 
+                System.currentTimeMillis() - start);
+    }
+
+    /**
+     * 全量估值：以当前行情向量与持仓矩阵相乘，重新计算所有基金的预估涨跌幅，
+     * 同时校正增量调整累积的浮点误差
+     */
+    @Scheduled(initialDelayString = "${myfunds.estimate.revalue-interval-millis:300000}",
+            fixedDelayString = "${myfunds.estimate.revalue-interval-millis:300000}")
+    public void revalueAll() {
+        long start = System.nanoTime();
+        int fundCount;
+        indexLock.writeLock().lock();
+        try {
+            if (matrixStale) {
+                rebuildMatrix();
+            }
+            double[] growthVector = new double[holdingsMatrix.getStockCount()];
+            for (int column = 0; column < growthVector.length; column++) {
+                growthVector[column] = stockGrowths.getOrDefault(holdingsMatrix.getStockCode(column), 0.0);
+            }
+            double[] fundGrowths = new double[holdingsMatrix.getFundCount()];
+            holdingsMatrix.multiply(growthVector, fundGrowths);
+            for (int row = 0; row < fundGrowths.length; row++) {
+                if (matrixRows[row].resetGrowth(fundGrowths[row])) {
+                    notifyChanged(matrixRows[row].fundId);
+                }
+            }
+            fundCount = fundGrowths.length;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        log.debug("基金全量估值完成，基金数量：{}, 耗时：{}μs", fundCount, (System.nanoTime() - start) / 1000);
+    }
+
+    /**
+     * 注册估值变化监听器，基金估值变化时以基金ID回调，回调在行情更新线程中执行，不应阻塞
+     */
+    public void addChangeListener(Consumer<Long> listener) {
+        changeListeners.add(listener);
+    }
+
+    private void notifyChanged(Long fundId) {
+        for (Consumer<Long> listener : changeListeners) {
+            listener.accept(fundId);
+        }
+    }
+
+    /**
+     * 在当前事务提交后刷新该基金的索引，无事务时立即执行
+     */
+    public void refreshAfterCommit(Fund fund, List<FundStock> holdings) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    onFundRefreshed(fund, holdings);
+                }
+            });
+        } else {
+            onFundRefreshed(fund, holdings);
+        }
+    }
+
+    /**
+     * 基金刷新后替换该基金的持仓索引，并以最新持仓中的股票涨跌幅更新行情
+     * @param fund 已保存的基金信息
+     * @param holdings 最新持仓
+     */
+    public void onFundRefreshed(Fund fund, List<FundStock> holdings) {
+        indexLock.writeLock().lock();
+        try {
+            FundState previous = fundStates.get(fund.getId());
+            if (previous != null) {
+                for (Position position : previous.positions) {
+                    List<Position> positions = positionsByStock.get(position.stockCode);
+                    if (positions != null) {
+                        positions.remove(position);
+                        if (positions.isEmpty()) {
+                            positionsByStock.remove(position.stockCode);
+                        }
+                    }
+                }
+            }
+            indexFund(fund, holdings);
+            matrixStale = true;
+        } finally {
+            indexLock.writeLock().unlock();
+        }
+        notifyChanged(fund.getId());
+
+        for (FundStock stock : holdings) {
+            if (stock.getDayGrowth() != null) {
+                onStockQuote(stock.getStockCode(), stock.getDayGrowth());
+            }
+        }
+    }
+
+    /**
+     * 股票行情更新，只调整持有该股票的基金
+     * @param stockCode 股票代码
+     * @param dayGrowth 最新日涨跌幅（%）
+     * @return 受影响的基金ID
+     */
+    public List<Long> onStockQuote(String stockCode, double dayGrowth) {
+        indexLock.readLock().lock();
+        try {
+            Double previous = stockGrowths.put(stockCode, dayGrowth);
+            double delta = dayGrowth - (previous == null ? 0.0 : previous);
+            List<Position> positions = positionsByStock.get(stockCode);
+            if (delta == 0.0 || positions == null) {
+                return Collections.emptyList();
+            }
+            List<Long> affectedFundIds = new ArrayList<>(positions.size());
+            for (Position position : positions) {
+                position.fund.applyDelta(position.weight * delta);
+                affectedFundIds.add(position.fund.fundId);
+                notifyChanged(position.fund.fundId);
+            }
+            return affectedFundIds;
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 索引中所有基金持有的股票代码
+     */
+    public List<String> getIndexedStockCodes() {
+        indexLock.readLock().lock();
+        try {
+            return new ArrayList<>(positionsByStock.keySet());
+        } finally {
+            indexLock.readLock().unlock();
+        }
+    }
+
+    /**
+     * 获取基金当前估值
+     * @return 估值，基金不在索引中时返回 null
+     */
+    public FundEstimate getEstimate(Long fundId) {
+        FundState state = fundStates.get(fundId);
+        return state == null ? null : state.toEstimate();
+    }
+
+    @PostConstruct
+    public void init() {
+        flushTransactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 将估值变化的基金批量写回 FUND 表，并按估值变化量增量调整持有这些基金的用户的当日预估收益
+     * 估值只随盘中行情变化，仅在交易时段及收盘后的一个写回间隔内执行；
+     * 多实例部署时每只基金只由分片归属节点写回，其他节点丢弃本地的变化标记
+     */
+    @Scheduled(fixedDelayString = "${myfunds.estimate.flush-interval-millis:10000}")
+    public void flushDirtyEstimates() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!tradingCalendar.isInSession(now)
+                && !tradingCalendar.isInSession(now.minus(Duration.ofMillis(flushIntervalMillis * 2)))) {
+            return;
+        }
+        List<String> fundCodes = new ArrayList<>(fundStates.size());
+        for (FundState state : fundStates.values()) {
+            fundCodes.add(state.fundCode);
+        }
+        Set<String> localCodes = new HashSet<>(fundShardRouter.filterLocalQuietly(fundCodes));
+
+        List<Fund> dirtyFunds = new ArrayList<>();
+        for (FundState state : fundStates.values()) {
+            FundEstimate estimate = state.takeIfDirty();
+            if (estimate != null && !localCodes.contains(state.fundCode)) {
+                continue;
+            }
+            if (estimate != null) {
+                Fund fund = new Fund();
+                fund.setId(estimate.getFundId());
+                fund.setEstimatedDayGrowth(estimate.getEstimatedDayGrowth());
+                fund.setEstimatedNav(estimate.getEstimatedNav());
+                fund.setEstimatedProfit(estimate.getEstimatedProfit());
+                dirtyFunds.add(fund);
+            }
+        }
+        if (dirtyFunds.isEmpty()) {
+            return;
+        }
+        for (int from = 0; from < dirtyFunds.size(); from += 500) {
+            List<Fund> batch = dirtyFunds.subList(from, Math.min(from + 500, dirtyFunds.size()));
+            // 增量以 FUND 表中的旧估值为基准，须先于写回执行
+            flushTransactionTemplate.execute(status -> {
+                portfolioService.applyEstimateChanges(batch);
+                fundMapper.updateEstimatesBatch(batch);
+                return null;
+            });
+        }
+        log.debug("基金估值写回完成，基金数量：{}", dirtyFunds.size());
+    }
+
+    /**
+     * 按当前索引重建持仓矩阵，调用方需持有写锁
+     */
+    private void rebuildMatrix() {
+        HoldingsMatrix.Builder builder = new HoldingsMatrix.Builder();
+        FundState[] rows = new FundState[fundStates.size()];
+        int row = 0;
+        for (FundState state : fundStates.values()) {
+            builder.addFund(state.fundId);
+            for (Position position : state.positions) {
+                builder.addHolding(position.stockCode, position.weight);
+            }
+            rows[row++] = state;
+        }
+        holdingsMatrix = builder.build();
+        matrixRows = rows;
+        matrixStale = false;
+    }
+
+    /**
+     * 建立单只基金的索引并按当前行情计算估值，调用方需持有写锁
+     */
+    private void indexFund(Fund fund, List<FundStock> holdings) {
+        FundState state = new FundState(fund.getId(), fund.getFundCode(), fund.getLatestNav());
+        double growth = 0.0;
+        for (FundStock stock : holdings) {
+            if (stock.getHoldingRatio() == null) {
+                continue;
+            }
+            Position position = new Position(stock.getStockCode(), stock.getHoldingRatio() / 100, state);
+            state.positions.add(position);
+            positionsByStock.computeIfAbsent(stock.getStockCode(), code -> new ArrayList<>()).add(position);
+            growth += position.weight * stockGrowths.getOrDefault(stock.getStockCode(), 0.0);
+        }
+        state.estimatedGrowth = growth;
+        state.dirty = true;
+        fundStates.put(fund.getId(), state);
+    }
+
+    /**
+     * 基金在某只股票上的持仓位置
+     */
+    private static class Position {
+        private final String stockCode;
+        private final double weight;
+        private final FundState fund;
+
+        Position(String stockCode, double weight, FundState fund) {
+            this.stockCode = stockCode;
+            this.weight = weight;
+            this.fund = fund;
+        }
+    }
+
+    /**
+     * 单只基金的估值状态
+     */
+    private static class FundState {
+        private final Long fundId;
+        private final String fundCode;
+        private final double latestNav;
+        private final List<Position> positions = new ArrayList<>();
+        private double estimatedGrowth;
+        private boolean dirty;
+        private LocalDateTime estimateTime = LocalDateTime.now();
+
+        FundState(Long fundId, String fundCode, Double latestNav) {
+            this.fundId = fundId;
+            this.fundCode = fundCode;
+            this.latestNav = latestNav == null ? 0.0 : latestNav;
+        }
+
+        synchronized void applyDelta(double growthDelta) {
+            estimatedGrowth += growthDelta;
+            estimateTime = LocalDateTime.now();
+            dirty = true;
+        }
+
+        synchronized boolean resetGrowth(double growth) {
+            if (Math.abs(estimatedGrowth - growth) <= 1e-9) {
+                return false;
+            }
+            estimatedGrowth = growth;
+            estimateTime = LocalDateTime.now();
+            dirty = true;
+            return true;
+        }
+
+        synchronized FundEstimate takeIfDirty() {
+            if (!dirty) {
+                return null;
+            }
+            dirty = false;
+            return toEstimate();
+        }
+
+        synchronized FundEstimate toEstimate() {
+            FundEstimate estimate = new FundEstimate();
+            estimate.setFundId(fundId);
+            estimate.setFundCode(fundCode);
+            estimate.setLatestNav(latestNav);
+            estimate.setEstimatedDayGrowth(estimatedGrowth);
+            estimate.setEstimatedNav(latestNav * (1 + estimatedGrowth / 100));
+            estimate.setEstimatedProfit(ESTIMATE_INVESTMENT_AMOUNT * estimatedGrowth / 100);
+            estimate.setEstimateTime(estimateTime);
+            return estimate;
+        }
+    }
+}
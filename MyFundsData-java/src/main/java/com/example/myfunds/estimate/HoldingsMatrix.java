@@ -0,0 +1,163 @@
+package com.example.myfunds.estimate;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 基金持仓稀疏矩阵（CSR 压缩行存储）
+ * 行为基金、列为股票、值为持仓权重（持仓比例 / 100），全部使用基本类型数组存储，
+ * 全量估值即一次稀疏矩阵与股票涨跌幅向量的乘法，计算过程中不产生对象分配和装箱
+ */
+public class HoldingsMatrix {
+
+    /**
+     * 行号 -> 基金ID
+     */
+    private final long[] fundIds;
+
+    /**
+     * 列号 -> 股票代码
+     */
+    private final String[] stockCodes;
+
+    /**
+     * 股票代码 -> 列号
+     */
+    private final Map<String, Integer> columnByStockCode;
+
+    /**
+     * 第 i 行的非零元素位于 [rowPtr[i], rowPtr[i + 1])
+     */
+    private final int[] rowPtr;
+
+    /**
+     * 非零元素所在列
+     */
+    private final int[] colIdx;
+
+    /**
+     * 非零元素的持仓权重
+     */
+    private final double[] weights;
+
+    private HoldingsMatrix(long[] fundIds, String[] stockCodes, Map<String, Integer> columnByStockCode,
+                           int[] rowPtr, int[] colIdx, double[] weights) {
+        this.fundIds = fundIds;
+        this.stockCodes = stockCodes;
+        this.columnByStockCode = columnByStockCode;
+        this.rowPtr = rowPtr;
+        this.colIdx = colIdx;
+        this.weights = weights;
+    }
+
+    /**
+     * 计算 result = 矩阵 × stockGrowths，即每只基金的预估涨跌幅
+     * @param stockGrowths 按列号排列的股票涨跌幅（%），长度为 {@link #getStockCount()}
+     * @param result 按行号排列的基金预估涨跌幅（%），长度为 {@link #getFundCount()}
+     */
+    public void multiply(double[] stockGrowths, double[] result) {
+        for (int row = 0; row < fundIds.length; row++) {
+            double sum = 0.0;
+            for (int k = rowPtr[row]; k < rowPtr[row + 1]; k++) {
+                sum += weights[k] * stockGrowths[colIdx[k]];
+            }
+            result[row] = sum;
+        }
+    }
+
+    public int getFundCount() {
+        return fundIds.length;
+    }
+
+    public int getStockCount() {
+        return stockCodes.length;
+    }
+
+    /**
+     * 非零元素数量，即持仓记录数
+     */
+    public int getEntryCount() {
+        return colIdx.length;
+    }
+
+    public long getFundId(int row) {
+        return fundIds[row];
+    }
+
+    public String getStockCode(int column) {
+        return stockCodes[column];
+    }
+
+    /**
+     * 获取股票所在列号，矩阵中不存在该股票时返回 -1
+     */
+    public int getColumn(String stockCode) {
+        Integer column = columnByStockCode.get(stockCode);
+        return column == null ? -1 : column;
+    }
+
+    /**
+     * 按行依次追加基金及其持仓构建矩阵
+     */
+    public static class Builder {
+        private long[] fundIds = new long[64];
+        private int[] rowPtr = new int[65];
+        private int[] colIdx = new int[1024];
+        private double[] weights = new double[1024];
+        private final Map<String, Integer> columnByStockCode = new HashMap<>();
+        private int rowCount;
+        private int entryCount;
+
+        /**
+         * 开始新的一行，之后追加的持仓都属于该基金
+         */
+        public Builder addFund(long fundId) {
+            if (rowCount == fundIds.length) {
+                fundIds = Arrays.copyOf(fundIds, rowCount * 2);
+                rowPtr = Arrays.copyOf(rowPtr, rowCount * 2 + 1);
+            }
+            fundIds[rowCount++] = fundId;
+            rowPtr[rowCount] = entryCount;
+            return this;
+        }
+
+        /**
+         * 为当前基金追加一条持仓
+         * @param weight 持仓权重（持仓比例 / 100）
+         */
+        public Builder addHolding(String stockCode, double weight) {
+            if (rowCount == 0) {
+                throw new RuntimeException("追加持仓前需先调用 addFund");
+            }
+            if (entryCount == colIdx.length) {
+                colIdx = Arrays.copyOf(colIdx, entryCount * 2);
+                weights = Arrays.copyOf(weights, entryCount * 2);
+            }
+            Integer column = columnByStockCode.get(stockCode);
+            if (column == null) {
+                column = columnByStockCode.size();
+                columnByStockCode.put(stockCode, column);
+            }
+            colIdx[entryCount] = column;
+            weights[entryCount] = weight;
+            entryCount++;
+            rowPtr[rowCount] = entryCount;
+            return this;
+        }
+
+        public HoldingsMatrix build() {
+            String[] stockCodes = new String[columnByStockCode.size()];
+            for (Map.Entry<String, Integer> entry : columnByStockCode.entrySet()) {
+                stockCodes[entry.getValue()] = entry.getKey();
+            }
+            return new HoldingsMatrix(
+                    Arrays.copyOf(fundIds, rowCount),
+                    stockCodes,
+                    new HashMap<>(columnByStockCode),
+                    Arrays.copyOf(rowPtr, rowCount + 1),
+                    Arrays.copyOf(colIdx, entryCount),
+                    Arrays.copyOf(weights, entryCount));
+        }
+    }
+}
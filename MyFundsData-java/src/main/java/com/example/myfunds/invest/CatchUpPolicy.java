@@ -0,0 +1,33 @@
+package com.example.myfunds.invest;
+
+/**
+ * 定投计划错过多期（服务停机、执行失败等）时的补投策略
+ */
+public enum CatchUpPolicy {
+    /**
+     * 逐期补投，每期生成一笔交易
+     */
+    ALL,
+
+    /**
+     * 合并补投，错过的各期金额合并为一笔交易
+     */
+    COLLAPSE,
+
+    /**
+     * 只执行当期，错过的各期跳过
+     */
+    SKIP;
+
+    /**
+     * 计算本次需要执行的期数
+     * @param duePeriods 截至本次执行已到期的期数
+     * @param maxCatchUpPeriods 单次最多补投的期数
+     */
+    public int periodsToExecute(int duePeriods, int maxCatchUpPeriods) {
+        if (this == SKIP) {
+            return Math.min(duePeriods, 1);
+        }
+        return Math.min(duePeriods, Math.max(maxCatchUpPeriods, 1));
+    }
+}
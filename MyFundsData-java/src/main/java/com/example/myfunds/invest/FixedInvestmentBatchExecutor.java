@@ -0,0 +1,365 @@
+package com.example.myfunds.invest;
+
+import com.example.myfunds.dto.FixedInvestmentRunSummary;
+import com.example.myfunds.entity.FixedInvestment;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundTransaction;
+import com.example.myfunds.entity.UserFund;
+import com.example.myfunds.mapper.FixedInvestmentMapper;
+import com.example.myfunds.mapper.FundTransactionMapper;
+import com.example.myfunds.mapper.UserFundMapper;
+import com.example.myfunds.order.TradeFeeCalculator;
+import com.example.myfunds.service.FundNavService;
+import com.example.myfunds.service.PortfolioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 定投计划批量执行器
+ * 到期计划分页读取后按基金分组，每只基金只获取一次净值；同一基金的计划按批次执行，
+ * 每批在独立事务中批量写入交易记录、批量累加用户持仓、批量推进下次执行时间；不同基金并行执行。
+ * 每批先以 SELECT ... FOR UPDATE SKIP LOCKED 认领计划，多个实例的定时器和每日兜底同时执行时，同一计划只会被执行一次
+ */
+@Component
+@Slf4j
+public class FixedInvestmentBatchExecutor {
+
+    /**
+     * 定投交易类型
+     */
+    public static final String TRANSACTION_TYPE = "FIXED_INVESTMENT";
+
+    @Autowired
+    private FixedInvestmentMapper fixedInvestmentMapper;
+
+    @Autowired
+    private FundTransactionMapper transactionMapper;
+
+    @Autowired
+    private UserFundMapper userFundMapper;
+
+    @Autowired
+    private FundNavService fundNavService;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private TradeFeeCalculator tradeFeeCalculator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("fixedInvestmentExecutor")
+    private Executor fixedInvestmentExecutor;
+
+    /**
+     * 每页读取的到期计划数量
+     */
+    @Value("${myfunds.fixed-investment.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * 每批（每个事务）执行的定投计划数量
+     */
+    @Value("${myfunds.fixed-investment.chunk-size:500}")
+    private int chunkSize;
+
+
+    /**
+     * 错过多期的计划补投策略
+     */
+    @Value("${myfunds.fixed-investment.catch-up-policy:ALL}")
+    private CatchUpPolicy catchUpPolicy;
+
+    /**
+     * 单个计划一次最多补投的期数，更早的期数视为跳过
+     */
+    @Value("${myfunds.fixed-investment.max-catch-up-periods:366}")
+    private int maxCatchUpPeriods;
+
+    private TransactionTemplate chunkTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        chunkTransactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 执行截至指定时间已到期的全部定投计划
+     * 到期计划按 (NEXT_EXECUTION_DATE, ID) 键集分页流式读取，每页执行完成后再读取下一页，内存占用与到期计划总数无关
+     */
+    public synchronized FixedInvestmentRunSummary executeDuePlans(LocalDateTime runTime) {
+        RunContext context = new RunContext(runTime);
+        // UPDATED_TIME 精确到秒，本轮推进过执行时间的计划更新时间不早于该值，不会被后续分页再次读到
+        LocalDateTime updatedBefore = context.summary.getStartTime().truncatedTo(ChronoUnit.SECONDS);
+        LocalDateTime afterNextExecutionDate = null;
+        Long afterId = null;
+        int pageCount = 0;
+        log.info("开始批量执行定投计划，截止时间：{}, 分页大小：{}, 补投策略：{}", runTime, pageSize, catchUpPolicy);
+
+        while (true) {
+            List<FixedInvestment> page = fixedInvestmentMapper.selectDuePage(
+                    "ACTIVE", runTime, updatedBefore, afterNextExecutionDate, afterId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            FixedInvestment last = page.get(page.size() - 1);
+            afterNextExecutionDate = last.getNextExecutionDate();
+            afterId = last.getId();
+            pageCount++;
+
+            log.debug("读取第{}页到期定投计划，计划数量：{}", pageCount, page.size());
+            executePlans(page, context);
+
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        FixedInvestmentRunSummary summary = context.finish();
+        log.info("定投计划批量执行完成，总数：{}, 成功：{}, 失败：{}, 执行期数：{}, 跳过期数：{}, 基金数量：{}, 页数：{}, 耗时：{}ms", 
+                summary.getTotal(), summary.getSucceeded(), summary.getFailed(), summary.getExecutedPeriods(), 
+                summary.getSkippedPeriods(), summary.getFundCount(), pageCount, summary.getElapsedMillis());
+        return summary;
+    }
+
+    /**
+     * 执行定时器到点触发的一批计划
+     * 以数据库为准，只执行仍处于启用状态且已到期的计划；与 {@link #executeDuePlans} 及其他实例的并发执行由批次内的行锁认领保证不重复
+     */
+    public synchronized FixedInvestmentRunSummary executeDuePlansByIds(List<Long> planIds, LocalDateTime runTime) {
+        RunContext context = new RunContext(runTime);
+        List<FixedInvestment> plans = fixedInvestmentMapper.selectDueByIds("ACTIVE", runTime, planIds);
+        if (!plans.isEmpty()) {
+            executePlans(plans, context);
+        }
+        return context.finish();
+    }
+
+    /**
+     * 将一组计划按基金分组，不同基金并行执行，全部完成后返回
+     */
+    private void executePlans(List<FixedInvestment> plans, RunContext context) {
+        Map<Long, List<FixedInvestment>> plansByFund = new LinkedHashMap<>();
+        for (FixedInvestment plan : plans) {
+            plansByFund.computeIfAbsent(plan.getFund().getId(), id -> new ArrayList<>()).add(plan);
+        }
+        context.total.addAndGet(plans.size());
+
+        List<CompletableFuture<Void>> futures = new ArrayList<>(plansByFund.size());
+        for (Map.Entry<Long, List<FixedInvestment>> entry : plansByFund.entrySet()) {
+            futures.add(CompletableFuture.runAsync(
+                    () -> executeFundPlans(entry.getKey(), entry.getValue(), context), fixedInvestmentExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+    }
+
+    /**
+     * 执行同一基金的一组到期计划，单批失败只影响该批计划
+     */
+    private void executeFundPlans(Long fundId, List<FixedInvestment> plans, RunContext context) {
+        Fund fund = resolveFund(fundId, context);
+        if (fund == null) {
+            log.warn("基金净值不可用，该基金定投计划本次不执行，基金ID：{}, 计划数量：{}", fundId, plans.size());
+            context.recordFailures(plans);
+            return;
+        }
+
+        for (int from = 0; from < plans.size(); from += chunkSize) {
+            List<FixedInvestment> chunk = plans.subList(from, Math.min(from + chunkSize, plans.size()));
+            try {
+                int[] periods = chunkTransactionTemplate.execute(status -> executeChunk(fund, chunk, context.runTime));
+                context.executedPeriods.addAndGet(periods[0]);
+                context.skippedPeriods.addAndGet(periods[1]);
+            } catch (Exception e) {
+                log.error("定投计划批次执行失败，基金代码：{}, 批次计划数量：{}, 错误原因：{}", 
+                        fund.getFundCode(), chunk.size(), e.getMessage(), e);
+                context.recordFailures(chunk);
+            }
+        }
+        log.debug("基金定投计划执行完成，基金代码：{}, 计划数量：{}", fund.getFundCode(), plans.size());
+    }
+
+    /**
+     * 获取本轮使用的基金净值，同一基金在一页内只对应一个任务，跨页时复用首次获取的结果
+     */
+    private Fund resolveFund(Long fundId, RunContext context) {
+        if (context.unavailableFunds.contains(fundId)) {
+            return null;
+        }
+        Fund fund = context.resolvedFunds.get(fundId);
+        if (fund != null) {
+            return fund;
+        }
+        try {
+            fund = fundNavService.resolveFundById(fundId);
+            context.resolvedFunds.put(fundId, fund);
+            return fund;
+        } catch (Exception e) {
+            log.error("获取基金净值失败，基金ID：{}, 错误原因：{}", fundId, e.getMessage(), e);
+            context.unavailableFunds.add(fundId);
+            return null;
+        }
+    }
+
+    /**
+     * 在当前事务中执行一批同一基金的定投计划
+     * 分页读取的计划未加锁，先在事务内锁定并重新读取，读取后已暂停、停止或已执行的计划不再执行；
+     * 每个计划截至 runTime 错过的全部期数一次算出，下次执行时间以读取到的值为条件推进到 runTime 之后，
+     * 全部推进成功后才按补投策略生成交易记录和持仓增量
+     * @return 执行期数与跳过期数
+     */
+    private int[] executeChunk(Fund fund, List<FixedInvestment> chunk, LocalDateTime runTime) {
+        List<Long> planIds = new ArrayList<>(chunk.size());
+        for (FixedInvestment plan : chunk) {
+            planIds.add(plan.getId());
+        }
+        List<FixedInvestment> plans = fixedInvestmentMapper.selectDueByIdsForUpdate("ACTIVE", runTime, planIds);
+        if (plans.size() < chunk.size()) {
+            log.debug("部分定投计划已暂停、停止、已执行或正由其他实例执行，本批跳过，基金代码：{}, 批次计划数量：{}, 待执行数量：{}", 
+                    fund.getFundCode(), chunk.size(), plans.size());
+        }
+        if (plans.isEmpty()) {
+            return new int[]{0, 0};
+        }
+
+        // 统计到期期数，并将下次执行时间推进到 runTime 之后
+        Map<Long, LocalDateTime> nextDates = new LinkedHashMap<>();
+        Map<Long, Integer> duePeriodsByPlan = new HashMap<>();
+        for (FixedInvestment plan : plans) {
+            int duePeriods = 0;
+            LocalDateTime nextExecutionDate = plan.getNextExecutionDate();
+            while (nextExecutionDate.isBefore(runTime)) {
+                duePeriods++;
+                nextExecutionDate = InvestmentFrequency.next(nextExecutionDate, plan.getFrequency());
+            }
+            nextDates.put(plan.getId(), nextExecutionDate);
+            duePeriodsByPlan.put(plan.getId(), duePeriods);
+        }
+        int advanced = fixedInvestmentMapper.updateNextExecutionDateBatch(plans, nextDates);
+        if (advanced != plans.size()) {
+            // 行已锁定，正常不会发生；整批回滚，由下一轮重新读取后执行
+            throw new RuntimeException(String.format("定投计划下次执行时间推进数量不符，待推进：%d, 实际推进：%d", 
+                    plans.size(), advanced));
+        }
+
+        double nav = fund.getLatestNav();
+        LocalDateTime now = LocalDateTime.now();
+        List<FundTransaction> transactions = new ArrayList<>(plans.size());
+        List<UserFund> holdingDeltas = new ArrayList<>(plans.size());
+        int executedPeriods = 0;
+        int skippedPeriods = 0;
+        for (FixedInvestment plan : plans) {
+            int duePeriods = duePeriodsByPlan.get(plan.getId());
+
+            int periods = catchUpPolicy.periodsToExecute(duePeriods, maxCatchUpPeriods);
+            double amount = catchUpPolicy == CatchUpPolicy.COLLAPSE ? plan.getAmount() * periods : plan.getAmount();
+            int transactionCount = catchUpPolicy == CatchUpPolicy.COLLAPSE ? 1 : periods;
+            double fee = tradeFeeCalculator.feeFor(amount);
+            double shares = (amount - fee) / nav;
+            for (int i = 0; i < transactionCount; i++) {
+                FundTransaction transaction = new FundTransaction();
+                transaction.setUserId(plan.getUserId());
+                transaction.setFund(fund);
+                transaction.setTransactionType(TRANSACTION_TYPE);
+                transaction.setTransactionAmount(amount);
+                transaction.setTransactionShares(shares);
+                transaction.setTransactionPrice(nav);
+                transaction.setFee(fee);
+                transaction.setStatus("SUCCESS");
+                transaction.setTransactionTime(now);
+                transactions.add(transaction);
+            }
+
+            // 持仓增量，与单笔加仓一致，成本按份额 × 成交净值累加
+            UserFund delta = new UserFund();
+            delta.setUserId(plan.getUserId());
+            delta.setFund(fund);
+            delta.setTotalShares(shares * transactionCount);
+            delta.setTotalCost(shares * transactionCount * nav);
+            holdingDeltas.add(delta);
+
+            executedPeriods += periods;
+            skippedPeriods += duePeriods - periods;
+            if (duePeriods > 1) {
+                log.debug("定投计划补投，计划ID：{}, 到期期数：{}, 执行期数：{}, 补投策略：{}", 
+                        plan.getId(), duePeriods, periods, catchUpPolicy);
+            }
+        }
+
+        if (!transactions.isEmpty()) {
+            transactionMapper.insertBatch(transactions);
+            userFundMapper.upsertSharesBatch(holdingDeltas, nav);
+            Set<Long> userIds = new LinkedHashSet<>();
+            for (UserFund delta : holdingDeltas) {
+                userIds.add(delta.getUserId());
+            }
+            portfolioService.refreshUsers(userIds);
+        }
+        return new int[]{executedPeriods, skippedPeriods};
+    }
+
+    /**
+     * 单轮执行的共享状态，同一基金在本轮只获取一次净值，获取失败的基金本轮不再重试
+     */
+    private static class RunContext {
+        private final LocalDateTime runTime;
+        private final FixedInvestmentRunSummary summary = new FixedInvestmentRunSummary();
+        private final long startNanos = System.nanoTime();
+        private final Map<Long, Fund> resolvedFunds = new ConcurrentHashMap<>();
+        private final Set<Long> unavailableFunds = ConcurrentHashMap.newKeySet();
+        private final List<Long> failedPlanIds = new ArrayList<>();
+        private final AtomicInteger total = new AtomicInteger();
+        private final AtomicInteger executedPeriods = new AtomicInteger();
+        private final AtomicInteger skippedPeriods = new AtomicInteger();
+
+        RunContext(LocalDateTime runTime) {
+            this.runTime = runTime;
+            summary.setStartTime(LocalDateTime.now());
+        }
+
+        void recordFailures(List<FixedInvestment> plans) {
+            synchronized (failedPlanIds) {
+                for (FixedInvestment plan : plans) {
+                    failedPlanIds.add(plan.getId());
+                }
+            }
+        }
+
+        FixedInvestmentRunSummary finish() {
+            summary.setTotal(total.get());
+            summary.setFundCount(resolvedFunds.size() + unavailableFunds.size());
+            summary.setFailed(failedPlanIds.size());
+            summary.setFailedPlanIds(failedPlanIds);
+            summary.setSucceeded(summary.getTotal() - failedPlanIds.size());
+            summary.setExecutedPeriods(executedPeriods.get());
+            summary.setSkippedPeriods(skippedPeriods.get());
+            summary.setEndTime(LocalDateTime.now());
+            summary.setElapsedMillis(Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+            return summary;
+        }
+    }
+}
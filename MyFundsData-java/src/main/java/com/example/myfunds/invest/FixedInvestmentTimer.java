@@ -0,0 +1,248 @@
+package com.example.myfunds.invest;
+
+import com.example.myfunds.dto.FixedInvestmentRunSummary;
+import com.example.myfunds.entity.FixedInvestment;
+import com.example.myfunds.mapper.FixedInvestmentMapper;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * 定投计划执行定时器
+ * 启用中的计划按下次执行时间放入内存优先队列，到点后按批次交给 {@link FixedInvestmentBatchExecutor} 执行，无需轮询数据表；
+ * 启动时从数据库重建，设置、暂停、恢复、停止定投计划时在事务提交后同步更新
+ */
+@Component
+@Slf4j
+public class FixedInvestmentTimer {
+
+    @Autowired
+    private FixedInvestmentMapper fixedInvestmentMapper;
+
+    @Autowired
+    private FixedInvestmentBatchExecutor fixedInvestmentBatchExecutor;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 单次触发执行的计划数量上限
+     */
+    @Value("${myfunds.fixed-investment.timer.batch-size:500}")
+    private int batchSize;
+
+    /**
+     * 执行失败的计划延后重试的间隔
+     */
+    @Value("${myfunds.fixed-investment.timer.retry-delay-millis:300000}")
+    private long retryDelayMillis;
+
+    /**
+     * 启动时分页加载计划的每页数量
+     */
+    @Value("${myfunds.fixed-investment.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * 按到期时间排序的待执行队列，取消或改期的计划不从队列中删除，出队时与 scheduledPlans 比对后丢弃
+     */
+    private final PriorityQueue<ScheduledPlan> queue = new PriorityQueue<>();
+
+    /**
+     * 每个计划当前有效的队列条目
+     */
+    private final Map<Long, ScheduledPlan> scheduledPlans = new HashMap<>();
+
+    private volatile boolean ready;
+
+    @PostConstruct
+    public void init() {
+        Gauge.builder("myfunds.fixed-investment.timer.scheduled", this, FixedInvestmentTimer::getScheduledCount)
+                .description("定投执行定时器中等待执行的计划数量")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 启动后从数据库加载全部启用中的计划
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuild() {
+        long startTime = System.currentTimeMillis();
+        List<FixedInvestment> loaded = new ArrayList<>();
+        Long afterId = null;
+        int total = 0;
+        while (true) {
+            List<FixedInvestment> page = fixedInvestmentMapper.selectPageByStatus("ACTIVE", afterId, pageSize);
+            if (page.isEmpty()) {
+                break;
+            }
+            loaded.addAll(page);
+            total += page.size();
+            afterId = page.get(page.size() - 1).getId();
+            if (page.size() < pageSize) {
+                break;
+            }
+        }
+
+        // 加载期间已通过设置、恢复等操作加入的计划以其最新排期为准
+        synchronized (this) {
+            for (FixedInvestment plan : loaded) {
+                scheduleIfAbsent(plan.getId(), toEpochMillis(plan.getNextExecutionDate()));
+            }
+            ready = true;
+        }
+        log.info("定投执行定时器重建完成，计划数量：{}, 耗时：{}ms", total, System.currentTimeMillis() - startTime);
+    }
+
+    /**
+     * 事务提交后按计划的下次执行时间加入定时器，已存在时改期
+     */
+    public void scheduleAfterCommit(FixedInvestment plan) {
+        Long planId = plan.getId();
+        LocalDateTime nextExecutionDate = plan.getNextExecutionDate();
+        runAfterCommit(() -> schedule(planId, toEpochMillis(nextExecutionDate)));
+    }
+
+    /**
+     * 事务提交后将计划移出定时器
+     */
+    public void cancelAfterCommit(Long planId) {
+        runAfterCommit(() -> cancel(planId));
+    }
+
+    public synchronized void schedule(Long planId, long dueTimeMillis) {
+        ScheduledPlan entry = new ScheduledPlan(planId, dueTimeMillis);
+        scheduledPlans.put(planId, entry);
+        queue.add(entry);
+    }
+
+    public synchronized void cancel(Long planId) {
+        scheduledPlans.remove(planId);
+    }
+
+    public synchronized int getScheduledCount() {
+        return scheduledPlans.size();
+    }
+
+    /**
+     * 执行已到期的计划，每批不超过 batchSize，直到没有到期计划
+     * 执行器以数据库状态为准并在批次事务内认领计划，定时器中的过期条目或其他实例的定时器不会导致重复执行
+     */
+    @Scheduled(fixedDelayString = "${myfunds.fixed-investment.timer.tick-millis:1000}")
+    public void fireDuePlans() {
+        if (!ready) {
+            return;
+        }
+        List<Long> duePlanIds;
+        while (!(duePlanIds = pollDue(System.currentTimeMillis())).isEmpty()) {
+            executeBatch(duePlanIds);
+        }
+    }
+
+    private void executeBatch(List<Long> planIds) {
+        log.info("定投计划到期触发，计划数量：{}", planIds.size());
+        FixedInvestmentRunSummary summary;
+        try {
+            summary = fixedInvestmentBatchExecutor.executeDuePlansByIds(planIds, LocalDateTime.now());
+        } catch (Exception e) {
+            log.error("定投计划批次触发执行失败，计划数量：{}, 错误原因：{}", planIds.size(), e.getMessage(), e);
+            long retryTime = System.currentTimeMillis() + retryDelayMillis;
+            for (Long planId : planIds) {
+                scheduleIfAbsent(planId, retryTime);
+            }
+            return;
+        }
+        log.info("定投计划到期执行完成，执行数量：{}, 成功：{}, 失败：{}, 耗时：{}ms",
+                summary.getTotal(), summary.getSucceeded(), summary.getFailed(), summary.getElapsedMillis());
+
+        // 按执行后的数据库状态重新排期：启用中的计划排到新的执行时间，失败的计划延后重试
+        Set<Long> failedPlanIds = new HashSet<>(summary.getFailedPlanIds());
+        long retryTime = System.currentTimeMillis() + retryDelayMillis;
+        for (FixedInvestment plan : fixedInvestmentMapper.selectByIds(planIds)) {
+            if (!"ACTIVE".equals(plan.getStatus())) {
+                continue;
+            }
+            long dueTime = failedPlanIds.contains(plan.getId())
+                    ? retryTime : toEpochMillis(plan.getNextExecutionDate());
+            scheduleIfAbsent(plan.getId(), dueTime);
+        }
+    }
+
+    /**
+     * 取出已到期的计划，出队时丢弃已取消或已改期的条目
+     */
+    private synchronized List<Long> pollDue(long now) {
+        List<Long> planIds = new ArrayList<>();
+        while (planIds.size() < batchSize && !queue.isEmpty() && queue.peek().dueTimeMillis <= now) {
+            ScheduledPlan entry = queue.poll();
+            if (scheduledPlans.remove(entry.planId, entry)) {
+                planIds.add(entry.planId);
+            }
+        }
+        return planIds;
+    }
+
+    /**
+     * 执行期间计划已被重新设置（如恢复定投）时以新的排期为准
+     */
+    private synchronized void scheduleIfAbsent(Long planId, long dueTimeMillis) {
+        if (!scheduledPlans.containsKey(planId)) {
+            schedule(planId, dueTimeMillis);
+        }
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static long toEpochMillis(LocalDateTime time) {
+        return time.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    /**
+     * 定时器队列条目，按到期时间排序，同一时间按计划ID排序
+     */
+    private static class ScheduledPlan implements Comparable<ScheduledPlan> {
+        private final Long planId;
+        private final long dueTimeMillis;
+
+        ScheduledPlan(Long planId, long dueTimeMillis) {
+            this.planId = planId;
+            this.dueTimeMillis = dueTimeMillis;
+        }
+
+        @Override
+        public int compareTo(ScheduledPlan other) {
+            int result = Long.compare(dueTimeMillis, other.dueTimeMillis);
+            return result != 0 ? result : Long.compare(planId, other.planId);
+        }
+    }
+}
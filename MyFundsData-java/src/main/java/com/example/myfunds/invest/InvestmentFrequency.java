@@ -0,0 +1,28 @@
+package com.example.myfunds.invest;
+
+import java.time.LocalDateTime;
+
+/**
+ * 定投频率：DAILY-每日，WEEKLY-每周，MONTHLY-每月
+ */
+public class InvestmentFrequency {
+
+    private InvestmentFrequency() {
+    }
+
+    /**
+     * 计算下次执行时间
+     */
+    public static LocalDateTime next(LocalDateTime current, String frequency) {
+        switch (frequency) {
+            case "DAILY":
+                return current.plusDays(1);
+            case "WEEKLY":
+                return current.plusWeeks(1);
+            case "MONTHLY":
+                return current.plusMonths(1);
+            default:
+                return current.plusDays(1);
+        }
+    }
+}
@@ -6,16 +6,57 @@ import org.apache.ibatis.annotations.Param;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 
 @Mapper
 public interface FixedInvestmentMapper {
     int insert(FixedInvestment plan);
     int update(FixedInvestment plan);
+    /**
+     * 批量推进下次执行时间，仅更新仍处于启用状态且下次执行时间仍为读取时的值的计划
+     * @param plans 读取时的计划，以其下次执行时间作为更新条件
+     * @param nextDates 计划ID -> 新的下次执行时间
+     * @return 实际推进的计划数量
+     */
+    int updateNextExecutionDateBatch(
+            @Param("plans") List<FixedInvestment> plans,
+            @Param("nextDates") Map<Long, LocalDateTime> nextDates);
     int deleteById(Long id);
     FixedInvestment selectById(Long id);
     List<FixedInvestment> selectByUserId(@Param("userId") Long userId);
     List<FixedInvestment> selectByUserIdAndFundId(@Param("userId") Long userId, @Param("fundId") Long fundId);
-    List<FixedInvestment> selectByStatusAndNextExecutionDateBefore(
+    /**
+     * 查询指定计划中仍处于指定状态且已到期的计划
+     */
+    List<FixedInvestment> selectDueByIds(
             @Param("status") String status, 
-            @Param("nextExecutionDate") LocalDateTime nextExecutionDate);
+            @Param("dueBefore") LocalDateTime dueBefore,
+            @Param("ids") List<Long> ids);
+    /**
+     * 在当前事务中锁定并重新读取指定计划中仍处于指定状态且早于 dueBefore 到期的计划
+     * 已被其他事务锁定的计划不等待、不返回，多个实例同时执行时每个计划只由一个实例认领
+     */
+    List<FixedInvestment> selectDueByIdsForUpdate(
+            @Param("status") String status, 
+            @Param("dueBefore") LocalDateTime dueBefore,
+            @Param("ids") List<Long> ids);
+    List<FixedInvestment> selectByIds(@Param("ids") List<Long> ids);
+    /**
+     * 按 ID 键集分页查询指定状态的计划，用于启动时重建执行定时器
+     */
+    List<FixedInvestment> selectPageByStatus(
+            @Param("status") String status, 
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+    /**
+     * 按 (NEXT_EXECUTION_DATE, ID) 键集分页查询到期计划，游标为空时从第一页开始
+     * 只返回在 updatedBefore 之前更新过的计划，本轮已推进执行时间的计划不会被再次扫描到
+     */
+    List<FixedInvestment> selectDuePage(
+            @Param("status") String status, 
+            @Param("dueBefore") LocalDateTime dueBefore,
+            @Param("updatedBefore") LocalDateTime updatedBefore,
+            @Param("afterNextExecutionDate") LocalDateTime afterNextExecutionDate,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
 }
\ No newline at end of file
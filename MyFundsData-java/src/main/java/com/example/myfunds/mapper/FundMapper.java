@@ -11,6 +11,8 @@ import java.util.Optional;
 public interface FundMapper {
     int insert(Fund fund);
     int update(Fund fund);
+    int updateLatestNav(Fund fund);
+    int updateEstimatesBatch(@Param("list") List<Fund> funds);
     int deleteById(Long id);
     Optional<Fund> selectById(Long id);
     Optional<Fund> selectByFundCode(@Param("fundCode") String fundCode);
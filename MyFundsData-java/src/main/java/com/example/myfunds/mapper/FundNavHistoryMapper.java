@@ -0,0 +1,21 @@
+package com.example.myfunds.mapper;
+
+import com.example.myfunds.entity.FundNavHistory;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+@Mapper
+public interface FundNavHistoryMapper {
+    int upsertBatch(@Param("list") List<FundNavHistory> navs);
+    List<FundNavHistory> selectRange(@Param("fundId") Long fundId, @Param("fromDate") LocalDate fromDate, @Param("toDate") LocalDate toDate);
+    FundNavHistory selectLatest(@Param("fundId") Long fundId);
+    Map<String, Object> selectPeriodBaseNavs(@Param("fundId") Long fundId,
+                                             @Param("weekDate") LocalDate weekDate,
+                                             @Param("monthDate") LocalDate monthDate,
+                                             @Param("quarterDate") LocalDate quarterDate,
+                                             @Param("yearDate") LocalDate yearDate);
+}
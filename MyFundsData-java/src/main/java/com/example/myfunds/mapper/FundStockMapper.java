@@ -4,15 +4,21 @@ import com.example.myfunds.entity.FundStock;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
 public interface FundStockMapper {
     int insert(FundStock fundStock);
+    int insertBatch(@Param("list") List<FundStock> fundStocks);
     int update(FundStock fundStock);
+    int updateQuotesBatch(@Param("list") List<FundStock> fundStocks);
     int deleteById(Long id);
     int deleteByFundId(@Param("fundId") Long fundId);
+    int deleteByFundIdAndReportDate(@Param("fundId") Long fundId, @Param("reportDate") LocalDateTime reportDate);
     FundStock selectById(Long id);
     List<FundStock> selectByFundId(@Param("fundId") Long fundId);
+    List<FundStock> selectHistoryByFundId(@Param("fundId") Long fundId);
     List<FundStock> selectAll();
+    List<FundStock> selectAllLatest();
 }
\ No newline at end of file
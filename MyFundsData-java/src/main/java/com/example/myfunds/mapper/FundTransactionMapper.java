@@ -4,16 +4,54 @@ import com.example.myfunds.entity.FundTransaction;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Mapper
 public interface FundTransactionMapper {
     int insert(FundTransaction transaction);
+    int insertBatch(@Param("list") List<FundTransaction> transactions);
     int update(FundTransaction transaction);
     int deleteById(Long id);
     FundTransaction selectById(Long id);
     List<FundTransaction> selectByUserId(@Param("userId") Long userId);
+    /**
+     * 按 (交易时间, ID) 倒序读取用户交易记录中游标之后的一页，游标为空时从最新一条开始
+     * 基金、类型、时间区间为可选筛选条件，时间区间左闭右开
+     */
+    List<FundTransaction> selectPageByUserId(@Param("userId") Long userId,
+                                             @Param("fundId") Long fundId,
+                                             @Param("transactionType") String transactionType,
+                                             @Param("fromTime") LocalDateTime fromTime,
+                                             @Param("toTime") LocalDateTime toTime,
+                                             @Param("cursorTime") LocalDateTime cursorTime,
+                                             @Param("cursorId") Long cursorId,
+                                             @Param("limit") int limit);
     List<FundTransaction> selectByFundId(@Param("fundId") Long fundId);
     List<FundTransaction> selectByUserIdAndFundId(@Param("userId") Long userId, @Param("fundId") Long fundId);
     List<FundTransaction> selectByStatus(@Param("status") String status);
+    /**
+     * 查询在截止时间前提交、仍待结算的委托涉及的基金
+     */
+    List<Long> selectPendingFundIds(@Param("cutoffTime") LocalDateTime cutoffTime);
+    /**
+     * 按 ID 键集分页查询指定基金在截止时间前提交的待结算委托
+     */
+    List<FundTransaction> selectPendingPage(
+            @Param("fundId") Long fundId, 
+            @Param("cutoffTime") LocalDateTime cutoffTime,
+            @Param("afterId") Long afterId,
+            @Param("limit") int limit);
+    /**
+     * 批量写入结算结果，仅更新仍待结算的委托
+     */
+    int settleBatch(@Param("list") List<FundTransaction> transactions);
+    /**
+     * 统计用户在指定基金上待结算的卖出份额
+     */
+    Double sumPendingSellShares(@Param("userId") Long userId, @Param("fundId") Long fundId);
+    /**
+     * 按ID顺序查询用户在指定ID之后的成功及待结算交易，用于从快照回放持仓
+     */
+    List<FundTransaction> selectReplayableAfter(@Param("userId") Long userId, @Param("afterId") Long afterId);
 }
\ No newline at end of file
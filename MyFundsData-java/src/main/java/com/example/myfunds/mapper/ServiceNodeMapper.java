@@ -0,0 +1,13 @@
+package com.example.myfunds.mapper;
+
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface ServiceNodeMapper {
+    int upsertHeartbeat(@Param("nodeId") String nodeId);
+    int deleteByNodeId(@Param("nodeId") String nodeId);
+    List<String> selectLiveNodeIds(@Param("ttlSeconds") int ttlSeconds);
+}
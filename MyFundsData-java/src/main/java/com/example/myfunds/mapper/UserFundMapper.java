@@ -4,16 +4,42 @@ import com.example.myfunds.entity.UserFund;
 import org.apache.ibatis.annotations.Mapper;
 import org.apache.ibatis.annotations.Param;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Mapper
 public interface UserFundMapper {
     int insert(UserFund userFund);
+    /**
+     * 按读取时的版本号更新持仓，返回 0 表示已被并发修改
+     */
     int update(UserFund userFund);
+    /**
+     * 批量累加持仓份额与成本，持仓不存在时新建，并按指定净值重算市值与盈亏
+     */
+    int upsertSharesBatch(@Param("list") List<UserFund> deltas, @Param("nav") Double nav);
+    /**
+     * 按关联基金的最新净值重算持仓市值与盈亏，返回更新行数
+     */
+    int revalueByFundIds(@Param("fundIds") Collection<Long> fundIds);
     int deleteById(Long id);
     Optional<UserFund> selectById(Long id);
     Optional<UserFund> selectByUserIdAndFundId(@Param("userId") Long userId, @Param("fundId") Long fundId);
     List<UserFund> selectByUserId(@Param("userId") Long userId);
     boolean existsByUserIdAndFundId(@Param("userId") Long userId, @Param("fundId") Long fundId);
+    /**
+     * 查询持有指定基金的用户ID（去重）
+     */
+    List<Long> selectUserIdsByFundIds(@Param("fundIds") Collection<Long> fundIds);
+    List<UserFund> selectByFundIdAndUserIds(@Param("fundId") Long fundId, @Param("userIds") Collection<Long> userIds);
+    int insertBatch(@Param("list") List<UserFund> userFunds);
+    /**
+     * 按各自读取时的版本号批量更新持仓，返回行数少于列表长度表示存在并发修改
+     */
+    int updateBatch(@Param("list") List<UserFund> userFunds);
+    /**
+     * 按各自读取时的版本号批量删除持仓
+     */
+    int deleteBatch(@Param("list") List<UserFund> userFunds);
 }
\ No newline at end of file
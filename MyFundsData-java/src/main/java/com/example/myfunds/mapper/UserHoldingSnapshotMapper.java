@@ -0,0 +1,14 @@
+package com.example.myfunds.mapper;
+
+import com.example.myfunds.entity.UserHoldingSnapshot;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.List;
+
+@Mapper
+public interface UserHoldingSnapshotMapper {
+    List<UserHoldingSnapshot> selectByUserId(@Param("userId") Long userId);
+    int deleteByUserId(@Param("userId") Long userId);
+    int insertBatch(@Param("list") List<UserHoldingSnapshot> snapshots);
+}
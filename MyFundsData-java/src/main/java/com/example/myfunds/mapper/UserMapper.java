@@ -2,7 +2,9 @@ package com.example.myfunds.mapper;
 
 import com.example.myfunds.entity.User;
 import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -59,4 +61,12 @@ public interface UserMapper {
      * @return 影响行数
      */
     int deleteById(Long id);
+    
+    /**
+     * 按ID键集分页查询用户ID
+     * @param afterId 上一页最后一个用户ID，为空时从第一页开始
+     * @param limit 每页数量
+     * @return 用户ID列表
+     */
+    List<Long> selectIdsPage(@Param("afterId") Long afterId, @Param("limit") int limit);
 }
\ No newline at end of file
@@ -0,0 +1,25 @@
+package com.example.myfunds.mapper;
+
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.UserPortfolio;
+import org.apache.ibatis.annotations.Mapper;
+import org.apache.ibatis.annotations.Param;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
+@Mapper
+public interface UserPortfolioMapper {
+    Optional<UserPortfolio> selectByUserId(@Param("userId") Long userId);
+    /**
+     * 按持仓重算指定用户的资产汇总，没有持仓的用户汇总归零
+     */
+    int refreshByUserIds(@Param("userIds") Collection<Long> userIds);
+    /**
+     * 按基金估值涨跌幅相对 FUND 表当前值的变化量，增量调整持有这些基金的用户的当日预估收益
+     * 须在写回 FUND 估值之前、同一事务中执行
+     * @param funds 基金ID及新的预估涨跌幅
+     */
+    int addEstimatedDayProfitDeltas(@Param("funds") List<Fund> funds);
+}
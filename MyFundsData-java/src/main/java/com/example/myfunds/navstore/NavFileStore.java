@@ -0,0 +1,223 @@
+package com.example.myfunds.navstore;
+
+import com.example.myfunds.entity.FundNavHistory;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 基金净值历史文件存储，净值历史查询和区间涨幅计算优先读取文件，文件未覆盖时回退数据库；数据库仍是净值历史的权威来源
+ * 每只基金一个文件 {fundId}.nav：8 字节文件头（魔数 + 版本）后接按日期升序的定长记录，
+ * 每条记录 12 字节（int 净值日期的 epoch day + double 净值）。
+ * 写入只追加到文件尾（同一天重复写入时覆盖最后一条），读取时整文件内存映射后按日期二分定位并切片，不复制数据
+ */
+@Component
+@Slf4j
+public class NavFileStore {
+
+    static final int RECORD_SIZE = Integer.BYTES + Double.BYTES;
+
+    private static final int MAGIC = 0x4E415631;
+
+    private static final int VERSION = 1;
+
+    private static final int HEADER_SIZE = Integer.BYTES * 2;
+
+    private static final String FILE_SUFFIX = ".nav";
+
+    @Value("${myfunds.nav-store.enabled:true}")
+    private boolean enabled;
+
+    @Value("${myfunds.nav-store.dir:data/nav}")
+    private String storeDir;
+
+    private Path baseDir;
+
+    /**
+     * 基金ID -> 文件写锁，同一基金的写入串行执行
+     */
+    private final Map<Long, Object> fileLocks = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() throws IOException {
+        baseDir = Paths.get(storeDir);
+        if (enabled) {
+            Files.createDirectories(baseDir);
+            log.info("净值历史文件存储目录：{}", baseDir.toAbsolutePath());
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * 在当前事务提交后追加净值，无事务时立即执行
+     */
+    public void appendAfterCommit(long fundId, LocalDate navDate, double nav) {
+        if (!enabled) {
+            return;
+        }
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    append(fundId, navDate, nav);
+                }
+            });
+        } else {
+            append(fundId, navDate, nav);
+        }
+    }
+
+    /**
+     * 追加一条净值；与最后一条同一天时覆盖，早于最后一条时忽略（需通过导出重建）
+     * 文件写入失败只记录日志，不影响调用方
+     */
+    public void append(long fundId, LocalDate navDate, double nav) {
+        if (!enabled) {
+            return;
+        }
+        int epochDay = (int) navDate.toEpochDay();
+        synchronized (lockOf(fundId)) {
+            try (FileChannel channel = FileChannel.open(fileOf(fundId),
+                    StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                long size = channel.size();
+                if (size < HEADER_SIZE) {
+                    writeHeader(channel);
+                    size = HEADER_SIZE;
+                }
+                // 忽略异常中断遗留的不完整记录
+                long position = HEADER_SIZE + (size - HEADER_SIZE) / RECORD_SIZE * RECORD_SIZE;
+                if (position > HEADER_SIZE) {
+                    ByteBuffer last = ByteBuffer.allocate(Integer.BYTES);
+                    channel.read(last, position - RECORD_SIZE);
+                    ((Buffer) last).flip();
+                    int lastEpochDay = last.getInt();
+                    if (epochDay < lastEpochDay) {
+                        log.debug("净值日期早于文件中最新日期，忽略追加，基金ID：{}, 净值日期：{}", fundId, navDate);
+                        return;
+                    }
+                    if (epochDay == lastEpochDay) {
+                        position -= RECORD_SIZE;
+                    }
+                }
+                ByteBuffer record = ByteBuffer.allocate(RECORD_SIZE);
+                record.putInt(epochDay).putDouble(nav);
+                ((Buffer) record).flip();
+                channel.write(record, position);
+                channel.truncate(position + RECORD_SIZE);
+            } catch (IOException e) {
+                log.error("追加净值历史文件失败，基金ID：{}, 错误原因：{}", fundId, e.getMessage(), e);
+            }
+        }
+    }
+
+    /**
+     * 用给定的完整净值历史重写基金文件，先写临时文件再原子替换，读取方不会看到写了一半的文件
+     * @param navs 按日期升序的净值历史
+     */
+    public void rewrite(long fundId, List<FundNavHistory> navs) throws IOException {
+        Path target = fileOf(fundId);
+        Path temp = baseDir.resolve(fundId + FILE_SUFFIX + ".tmp");
+        ByteBuffer buffer = ByteBuffer.allocate(HEADER_SIZE + navs.size() * RECORD_SIZE);
+        buffer.putInt(MAGIC).putInt(VERSION);
+        for (FundNavHistory history : navs) {
+            buffer.putInt((int) history.getNavDate().toEpochDay()).putDouble(history.getNav());
+        }
+        ((Buffer) buffer).flip();
+        synchronized (lockOf(fundId)) {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+                channel.force(false);
+            }
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+
+    /**
+     * 读取基金在日期区间内的净值序列（起止日期均包含）
+     */
+    public NavSeries read(long fundId, LocalDate fromDate, LocalDate toDate) {
+        Path file = fileOf(fundId);
+        if (!Files.exists(file)) {
+            return NavSeries.empty(fundId);
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= HEADER_SIZE) {
+                return NavSeries.empty(fundId);
+            }
+            // 映射在通道关闭后依然有效
+            MappedByteBuffer mapped = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            if (mapped.getInt(0) != MAGIC) {
+                throw new RuntimeException("净值历史文件格式错误：" + file);
+            }
+            int count = (int) ((size - HEADER_SIZE) / RECORD_SIZE);
+            int start = lowerBound(mapped, count, (int) fromDate.toEpochDay());
+            int end = lowerBound(mapped, count, (int) toDate.toEpochDay() + 1);
+            if (start >= end) {
+                return NavSeries.empty(fundId);
+            }
+            // 以 Buffer 调用，避免在高版本 JDK 编译后于 Java 8 运行时找不到协变重载
+            ((Buffer) mapped).position(HEADER_SIZE + start * RECORD_SIZE);
+            ((Buffer) mapped).limit(HEADER_SIZE + end * RECORD_SIZE);
+            return new NavSeries(fundId, mapped.slice());
+        } catch (IOException e) {
+            throw new RuntimeException("读取净值历史文件失败：" + file, e);
+        }
+    }
+
+    /**
+     * 第一条净值日期不小于 epochDay 的记录下标
+     */
+    private int lowerBound(ByteBuffer buffer, int count, int epochDay) {
+        int low = 0;
+        int high = count;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (buffer.getInt(HEADER_SIZE + mid * RECORD_SIZE) < epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    private void writeHeader(FileChannel channel) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION);
+        ((Buffer) header).flip();
+        channel.write(header, 0);
+    }
+
+    private Path fileOf(long fundId) {
+        return baseDir.resolve(fundId + FILE_SUFFIX);
+    }
+
+    private Object lockOf(long fundId) {
+        return fileLocks.computeIfAbsent(fundId, id -> new Object());
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.myfunds.navstore;
+
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+
+/**
+ * 单只基金一段日期区间内的净值序列
+ * 直接引用内存映射文件的切片，不复制数据；按下标以基本类型读取，遍历过程中不产生对象分配
+ */
+public final class NavSeries {
+
+    private static final NavSeries EMPTY = new NavSeries(0L, ByteBuffer.allocate(0));
+
+    private final long fundId;
+    private final ByteBuffer records;
+    private final int size;
+
+    NavSeries(long fundId, ByteBuffer records) {
+        this.fundId = fundId;
+        this.records = records;
+        this.size = records.capacity() / NavFileStore.RECORD_SIZE;
+    }
+
+    static NavSeries empty(long fundId) {
+        return fundId == 0L ? EMPTY : new NavSeries(fundId, ByteBuffer.allocate(0));
+    }
+
+    public long getFundId() {
+        return fundId;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * 第 index 条记录的净值日期（距 1970-01-01 的天数）
+     */
+    public int getEpochDay(int index) {
+        return records.getInt(index * NavFileStore.RECORD_SIZE);
+    }
+
+    public LocalDate getNavDate(int index) {
+        return LocalDate.ofEpochDay(getEpochDay(index));
+    }
+
+    public double getNav(int index) {
+        return records.getDouble(index * NavFileStore.RECORD_SIZE + Integer.BYTES);
+    }
+
+    /**
+     * 净值日期不晚于 date 的最后一条记录下标，不存在时返回 -1
+     */
+    public int indexOnOrBefore(LocalDate date) {
+        int epochDay = (int) date.toEpochDay();
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (getEpochDay(mid) <= epochDay) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low - 1;
+    }
+}
@@ -0,0 +1,343 @@
+package com.example.myfunds.order;
+
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.calendar.TradingCalendar;
+import com.example.myfunds.cluster.FundShardRouter;
+import com.example.myfunds.dto.OrderSettlementSummary;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundTransaction;
+import com.example.myfunds.entity.UserFund;
+import com.example.myfunds.mapper.FundTransactionMapper;
+import com.example.myfunds.mapper.UserFundMapper;
+import com.example.myfunds.service.FundNavService;
+import com.example.myfunds.service.PortfolioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 买入、卖出委托结算任务
+ * 交易日净值公布后，截止时间前提交的待结算委托按基金分组，每只基金获取一次确认净值（净值日期须为截止日），
+ * 逐页在独立事务中批量定价、更新持仓并将委托置为 SUCCESS/FAILED；不同基金并行结算；
+ * 持仓不加行锁，按版本号乐观更新，与定投执行等并发写入冲突时重试该页
+ */
+@Component
+@Slf4j
+public class FundOrderSettlementWorker {
+
+    @Autowired
+    private FundTransactionMapper transactionMapper;
+
+    @Autowired
+    private UserFundMapper userFundMapper;
+
+    @Autowired
+    private FundNavService fundNavService;
+
+    @Autowired
+    private TradingCalendar tradingCalendar;
+
+    @Autowired
+    private FundShardRouter fundShardRouter;
+
+    @Autowired
+    private FundCache fundCache;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private TradeFeeCalculator tradeFeeCalculator;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("orderSettlementExecutor")
+    private Executor orderSettlementExecutor;
+
+    /**
+     * 每页（每个事务）结算的委托数量
+     */
+    @Value("${myfunds.order.settle-page-size:500}")
+    private int pageSize;
+
+    /**
+     * 持仓或委托被并发修改时单页的最大尝试次数
+     */
+    @Value("${myfunds.order.settle-max-retries:3}")
+    private int maxRetries;
+
+    private TransactionTemplate pageTransactionTemplate;
+
+    @PostConstruct
+    public void init() {
+        pageTransactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 交易日收盘后净值刷新完成时，结算当日收盘前提交的委托；收盘后提交的委托顺延到下一个交易日。
+     * 多实例部署时每个实例只结算归属本节点分片的基金
+     */
+    @Scheduled(cron = "${myfunds.order.settle-cron:0 0 21 * * ?}")
+    public void settleAfterNavRefresh() {
+        LocalDate today = LocalDate.now();
+        if (!tradingCalendar.isTradingDay(today)) {
+            log.info("非交易日，跳过委托结算：{}", today);
+            return;
+        }
+        settle(tradingCalendar.sessionClose(today), true);
+    }
+
+    /**
+     * 结算截止时间前提交的全部待结算委托
+     */
+    public OrderSettlementSummary settle(LocalDateTime cutoffTime) {
+        return settle(cutoffTime, false);
+    }
+
+    /**
+     * 结算截止时间前提交的待结算委托
+     * @param localShardOnly 是否只结算归属本节点分片的基金
+     */
+    private synchronized OrderSettlementSummary settle(LocalDateTime cutoffTime, boolean localShardOnly) {
+        OrderSettlementSummary summary = new OrderSettlementSummary();
+        summary.setCutoffTime(cutoffTime);
+        summary.setStartTime(LocalDateTime.now());
+        long startNanos = System.nanoTime();
+
+        List<Long> fundIds = transactionMapper.selectPendingFundIds(cutoffTime);
+        if (localShardOnly) {
+            fundIds = filterLocalShard(fundIds);
+        }
+        summary.setFundCount(fundIds.size());
+        log.info("开始结算委托，截止时间：{}, 涉及基金数量：{}", cutoffTime, fundIds.size());
+
+        AtomicInteger succeeded = new AtomicInteger();
+        AtomicInteger failed = new AtomicInteger();
+        AtomicInteger deferredFunds = new AtomicInteger();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(fundIds.size());
+        for (Long fundId : fundIds) {
+            futures.add(CompletableFuture.runAsync(
+                    () -> settleFund(fundId, cutoffTime, succeeded, failed, deferredFunds), orderSettlementExecutor));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+        summary.setSucceeded(succeeded.get());
+        summary.setFailed(failed.get());
+        summary.setTotal(succeeded.get() + failed.get());
+        summary.setDeferredFundCount(deferredFunds.get());
+        summary.setEndTime(LocalDateTime.now());
+        summary.setElapsedMillis(Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        log.info("委托结算完成，总数：{}, 成功：{}, 失败：{}, 顺延基金数量：{}, 耗时：{}ms", 
+                summary.getTotal(), summary.getSucceeded(), summary.getFailed(), 
+                summary.getDeferredFundCount(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    /**
+     * 筛选出归属本节点分片的基金；基金不存在时保留，由结算流程记录并顺延
+     */
+    private List<Long> filterLocalShard(List<Long> fundIds) {
+        List<Long> localFundIds = new ArrayList<>(fundIds.size());
+        for (Long fundId : fundIds) {
+            Fund fund = fundCache.getById(fundId);
+            if (fund == null || fundShardRouter.isLocal(fund.getFundCode())) {
+                localFundIds.add(fundId);
+            }
+        }
+        log.info("委托结算分片计算完成，待结算基金数量：{}, 本节点负责：{}", fundIds.size(), localFundIds.size());
+        return localFundIds;
+    }
+
+    /**
+     * 结算同一基金的待结算委托，净值获取失败或尚未公布截止日净值时整只基金顺延，单页失败回滚该页并停止该基金本轮结算
+     */
+    private void settleFund(Long fundId, LocalDateTime cutoffTime, AtomicInteger succeeded,
+                            AtomicInteger failed, AtomicInteger deferredFunds) {
+        Fund fund;
+        try {
+            fund = fundNavService.resolveFundById(fundId);
+        } catch (Exception e) {
+            log.error("获取基金确认净值失败，该基金委托顺延到下次结算，基金ID：{}, 错误原因：{}", fundId, e.getMessage(), e);
+            deferredFunds.incrementAndGet();
+            return;
+        }
+        LocalDate cutoffDate = cutoffTime.toLocalDate();
+        if (!cutoffDate.equals(fund.getNavDate())) {
+            log.warn("基金截止日净值尚未公布，该基金委托顺延到下次结算，基金代码：{}, 截止日：{}, 净值日期：{}", 
+                    fund.getFundCode(), cutoffDate, fund.getNavDate());
+            deferredFunds.incrementAndGet();
+            return;
+        }
+
+        Long afterId = null;
+        while (true) {
+            long[] result;
+            try {
+                result = settleNextPage(fund, cutoffTime, afterId);
+            } catch (Exception e) {
+                // 后续委托依赖本页之后的持仓，本页回滚后不再继续，整体留待下次结算
+                log.error("委托结算失败，该基金剩余委托顺延到下次结算，基金代码：{}, 错误原因：{}", 
+                        fund.getFundCode(), e.getMessage(), e);
+                deferredFunds.incrementAndGet();
+                return;
+            }
+            if (result == null) {
+                break;
+            }
+            int pageCount = (int) result[0];
+            int failedCount = (int) result[1];
+            succeeded.addAndGet(pageCount - failedCount);
+            failed.addAndGet(failedCount);
+            afterId = result[2];
+            if (pageCount < pageSize) {
+                break;
+            }
+        }
+        log.debug("基金委托结算完成，基金代码：{}, 确认净值：{}", fund.getFundCode(), fund.getLatestNav());
+    }
+
+    /**
+     * 在独立事务中读取并结算下一页委托，持仓或委托被并发修改时回滚并重新读取该页重试
+     * @return 本页委托数量、确认失败数量、本页最后一个委托ID；没有待结算委托时返回 null
+     */
+    private long[] settleNextPage(Fund fund, LocalDateTime cutoffTime, Long afterId) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return pageTransactionTemplate.execute(status -> {
+                    List<FundTransaction> page = transactionMapper.selectPendingPage(
+                            fund.getId(), cutoffTime, afterId, pageSize);
+                    if (page.isEmpty()) {
+                        return null;
+                    }
+                    int failedCount = settlePage(fund, page);
+                    return new long[]{page.size(), failedCount, page.get(page.size() - 1).getId()};
+                });
+            } catch (OptimisticLockingFailureException | DuplicateKeyException e) {
+                if (attempt >= maxRetries) {
+                    throw e;
+                }
+                log.warn("委托结算遇到并发修改，重试第{}次，基金代码：{}, 原因：{}", attempt, fund.getFundCode(), e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 在当前事务中按提交顺序结算一页委托
+     * 读取涉及用户的持仓，在内存中依次累计买入、扣减卖出，最后按读取时的版本号批量写回持仓和委托结果；
+     * 任一持仓或委托已被并发修改时抛出异常，由调用方回滚后重试
+     * @return 确认失败的委托数量
+     */
+    private int settlePage(Fund fund, List<FundTransaction> page) {
+        double nav = fund.getLatestNav();
+        Set<Long> userIds = new LinkedHashSet<>();
+        for (FundTransaction order : page) {
+            userIds.add(order.getUserId());
+        }
+        Map<Long, UserFund> holdings = new HashMap<>();
+        for (UserFund holding : userFundMapper.selectByFundIdAndUserIds(fund.getId(), userIds)) {
+            holdings.put(holding.getUserId(), holding);
+        }
+
+        int failedCount = 0;
+        for (FundTransaction order : page) {
+            UserFund holding = holdings.get(order.getUserId());
+            order.setTransactionPrice(nav);
+            if ("SELL".equals(order.getTransactionType())) {
+                double shares = order.getTransactionShares();
+                if (holding == null || holding.getTotalShares() < shares) {
+                    log.warn("卖出委托确认失败，持仓份额不足，委托ID：{}, 用户ID：{}, 委托份额：{}", 
+                            order.getId(), order.getUserId(), shares);
+                    order.setTransactionAmount(0.0);
+                    order.setFee(0.0);
+                    order.setStatus("FAILED");
+                    failedCount++;
+                    continue;
+                }
+                double amount = shares * nav;
+                order.setTransactionAmount(amount);
+                order.setFee(tradeFeeCalculator.feeFor(amount));
+                holding.setTotalShares(holding.getTotalShares() - shares);
+                holding.setTotalCost(holding.getTotalCost() - shares * nav);
+            } else {
+                double amount = order.getTransactionAmount();
+                double fee = tradeFeeCalculator.feeFor(amount);
+                double shares = (amount - fee) / nav;
+                order.setTransactionShares(shares);
+                order.setFee(fee);
+                if (holding == null) {
+                    holding = new UserFund();
+                    holding.setUserId(order.getUserId());
+                    holding.setFund(fund);
+                    holding.setTotalShares(0.0);
+                    holding.setTotalCost(0.0);
+                    holdings.put(order.getUserId(), holding);
+                }
+                holding.setTotalShares(holding.getTotalShares() + shares);
+                holding.setTotalCost(holding.getTotalCost() + shares * nav);
+            }
+            order.setStatus("SUCCESS");
+        }
+
+        // 全部卖出的持仓删除，其余按确认净值重算市值与盈亏后批量写回
+        List<UserFund> inserts = new ArrayList<>();
+        List<UserFund> updates = new ArrayList<>(holdings.size());
+        List<UserFund> deletes = new ArrayList<>();
+        for (UserFund holding : holdings.values()) {
+            if (holding.getTotalShares() <= 0) {
+                if (holding.getId() != null) {
+                    deletes.add(holding);
+                }
+                continue;
+            }
+            holding.setFund(fund);
+            holding.setAverageCost(holding.getTotalCost() / holding.getTotalShares());
+            holding.setCurrentValue(holding.getTotalShares() * nav);
+            holding.setProfitLoss(holding.getCurrentValue() - holding.getTotalCost());
+            holding.setProfitLossRatio(holding.getTotalCost() > 0
+                    ? (holding.getProfitLoss() / holding.getTotalCost()) * 100 : 0.0);
+            if (holding.getId() == null) {
+                inserts.add(holding);
+            } else {
+                updates.add(holding);
+            }
+        }
+        // 新建持仓与并发创建的同一持仓冲突时抛出 DuplicateKeyException
+        if (!inserts.isEmpty()) {
+            userFundMapper.insertBatch(inserts);
+        }
+        if (!updates.isEmpty() && userFundMapper.updateBatch(updates) != updates.size()) {
+            throw new OptimisticLockingFailureException("持仓已被并发修改，基金代码：" + fund.getFundCode());
+        }
+        if (!deletes.isEmpty() && userFundMapper.deleteBatch(deletes) != deletes.size()) {
+            throw new OptimisticLockingFailureException("持仓已被并发修改，基金代码：" + fund.getFundCode());
+        }
+        if (transactionMapper.settleBatch(page) != page.size()) {
+            throw new OptimisticLockingFailureException("委托已被并发结算，基金代码：" + fund.getFundCode());
+        }
+        portfolioService.refreshUsers(userIds);
+        return failedCount;
+    }
+}
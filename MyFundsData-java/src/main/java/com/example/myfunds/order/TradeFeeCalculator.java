@@ -0,0 +1,24 @@
+package com.example.myfunds.order;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * 交易手续费计算
+ * 委托结算、定投执行和委托提交共用同一费率，对应 application.yml 中的 myfunds.trade.fee-rate
+ */
+@Component
+public class TradeFeeCalculator {
+
+    @Value("${myfunds.trade.fee-rate}")
+    private double feeRate;
+
+    /**
+     * 按交易金额计算手续费
+     * @param amount 交易金额
+     * @return 手续费
+     */
+    public double feeFor(double amount) {
+        return amount * feeRate;
+    }
+}
@@ -0,0 +1,38 @@
+package com.example.myfunds.provider;
+
+import com.example.myfunds.dto.FundNav;
+import com.example.myfunds.dto.StockQuote;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundStock;
+
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基金数据提供方
+ * 所有方法均为异步调用，调用线程不会因等待外部接口响应而阻塞
+ */
+public interface FundDataProvider {
+    /**
+     * 获取基金基本信息及最新净值
+     */
+    CompletableFuture<Fund> fetchFund(String fundCode);
+
+    /**
+     * 仅获取基金最新净值，用于交易定价等轻量场景
+     */
+    CompletableFuture<FundNav> fetchLatestNav(String fundCode);
+
+    /**
+     * 获取基金最新报告期的持仓股票
+     */
+    CompletableFuture<List<FundStock>> fetchHoldings(String fundCode);
+
+    /**
+     * 批量获取股票行情，一次调用获取多只股票
+     * @param stockCodes 股票代码，调用方负责去重和控制单批数量
+     * @return 股票代码 -> 行情，接口未返回的股票不包含在结果中
+     */
+    CompletableFuture<Map<String, StockQuote>> fetchStockQuotes(List<String> stockCodes);
+}
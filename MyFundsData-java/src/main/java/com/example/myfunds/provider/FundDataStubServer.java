@@ -0,0 +1,138 @@
+package com.example.myfunds.provider;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 可内嵌的本地基金数据桩服务
+ * 按 {@link HttpFundDataProvider} 的接口约定返回模拟数据，用于联调、测试和压测，
+ * 可通过 myfunds.api.stub.enabled 随应用启动，也可通过 main 方法单独运行
+ */
+@Slf4j
+public class FundDataStubServer {
+
+    public static final String CONTEXT_PATH = "/fund";
+
+    private final SimulatedFundDataProvider dataSource = new SimulatedFundDataProvider();
+    private final ObjectMapper objectMapper;
+    private final long latencyMillis;
+    private final AtomicLong requestCount = new AtomicLong();
+
+    private HttpServer server;
+    private ExecutorService executor;
+
+    public FundDataStubServer(ObjectMapper objectMapper, long latencyMillis) {
+        this.objectMapper = objectMapper;
+        this.latencyMillis = latencyMillis;
+    }
+
+    /**
+     * 启动桩服务
+     * @param port 监听端口，0 表示随机端口
+     */
+    public synchronized void start(int port) throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", port), 1024);
+        executor = Executors.newCachedThreadPool();
+        server.setExecutor(executor);
+        server.createContext(CONTEXT_PATH, this::handle);
+        server.start();
+        log.info("基金数据桩服务启动完成，地址：{}", getBaseUrl());
+    }
+
+    public synchronized void stop() {
+        if (server != null) {
+            server.stop(0);
+            executor.shutdownNow();
+            server = null;
+            log.info("基金数据桩服务已停止，累计处理请求数：{}", requestCount.get());
+        }
+    }
+
+    /**
+     * 获取可直接配置到 myfunds.api.fund-data-url 的接口地址
+     */
+    public String getBaseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + CONTEXT_PATH;
+    }
+
+    public long getRequestCount() {
+        return requestCount.get();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        try {
+            if (latencyMillis > 0) {
+                Thread.sleep(latencyMillis);
+            }
+            // 路径格式：/fund/{fundCode}、/fund/{fundCode}/nav、/fund/{fundCode}/holdings 或 /fund/quotes?codes=a,b,c
+            String[] segments = exchange.getRequestURI().getPath().substring(CONTEXT_PATH.length()).split("/");
+            Object body;
+            if (segments.length == 2 && "quotes".equals(segments[1])) {
+                body = dataSource.simulateQuotes(parseCodes(exchange.getRequestURI().getQuery()));
+            } else if (segments.length == 2) {
+                body = dataSource.simulateFund(segments[1]);
+            } else if (segments.length == 3 && "nav".equals(segments[2])) {
+                body = dataSource.simulateNav(segments[1]);
+            } else if (segments.length == 3 && "holdings".equals(segments[2])) {
+                body = dataSource.simulateHoldings(segments[1]);
+            } else {
+                exchange.sendResponseHeaders(404, -1);
+                return;
+            }
+            byte[] bytes = objectMapper.writeValueAsBytes(body);
+            exchange.getResponseHeaders().set("Content-Type", "application/json;charset=UTF-8");
+            exchange.sendResponseHeaders(200, bytes.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(bytes);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            exchange.sendResponseHeaders(503, -1);
+        } finally {
+            exchange.close();
+        }
+    }
+
+    /**
+     * 解析查询参数 codes=a,b,c
+     */
+    private List<String> parseCodes(String query) {
+        if (query != null) {
+            for (String param : query.split("&")) {
+                if (param.startsWith("codes=") && param.length() > "codes=".length()) {
+                    return Arrays.asList(param.substring("codes=".length()).split(","));
+                }
+            }
+        }
+        return Collections.emptyList();
+    }
+
+    /**
+     * 单独运行桩服务
+     * 参数：[端口] [响应延迟毫秒]
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 18080;
+        long latencyMillis = args.length > 1 ? Long.parseLong(args[1]) : 0;
+        ObjectMapper objectMapper = new ObjectMapper()
+                .findAndRegisterModules()
+                .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        FundDataStubServer stubServer = new FundDataStubServer(objectMapper, latencyMillis);
+        stubServer.start(port);
+        Runtime.getRuntime().addShutdownHook(new Thread(stubServer::stop));
+    }
+}
@@ -0,0 +1,161 @@
+package com.example.myfunds.provider;
+
+import com.example.myfunds.config.FundApiProperties;
+import com.example.myfunds.dto.FundNav;
+import com.example.myfunds.dto.StockQuote;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundStock;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.async.CloseableHttpAsyncClient;
+import org.apache.hc.client5.http.impl.async.HttpAsyncClients;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManager;
+import org.apache.hc.client5.http.impl.nio.PoolingAsyncClientConnectionManagerBuilder;
+import org.apache.hc.core5.concurrent.FutureCallback;
+import org.apache.hc.core5.http.nio.AsyncRequestProducer;
+import org.apache.hc.core5.http.nio.support.AsyncRequestBuilder;
+import org.apache.hc.core5.io.CloseMode;
+import org.apache.hc.core5.reactor.IOReactorConfig;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 基于 HttpClient 5 异步客户端的基金数据提供方
+ * 所有请求共享同一个连接池，由 I/O reactor 线程驱动，调用线程不会阻塞等待响应
+ * 接口约定：GET {fund-data-url}/{fundCode} 返回基金信息，GET {fund-data-url}/{fundCode}/nav 返回最新净值，
+ * GET {fund-data-url}/{fundCode}/holdings 返回持仓列表，GET {fund-data-url}/quotes?codes=a,b,c 批量返回股票行情
+ */
+@Component
+@ConditionalOnProperty(name = "myfunds.api.provider", havingValue = "http")
+@Slf4j
+public class HttpFundDataProvider implements FundDataProvider {
+
+    private static final String API_KEY_HEADER = "X-Api-Key";
+
+    @Autowired
+    private FundApiProperties apiProperties;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private CloseableHttpAsyncClient httpClient;
+
+    private JavaType fundType;
+
+    private JavaType navType;
+
+    private JavaType holdingsType;
+
+    private JavaType quotesType;
+
+    @PostConstruct
+    public void init() {
+        PoolingAsyncClientConnectionManager connectionManager = PoolingAsyncClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(apiProperties.getMaxConnections())
+                .setMaxConnPerRoute(apiProperties.getMaxConnectionsPerRoute())
+                .build();
+
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectTimeout(Timeout.ofMilliseconds(apiProperties.getConnectTimeoutMillis()))
+                .setResponseTimeout(Timeout.ofMilliseconds(apiProperties.getResponseTimeoutMillis()))
+                .setConnectionRequestTimeout(Timeout.ofMilliseconds(apiProperties.getConnectionRequestTimeoutMillis()))
+                .build();
+
+        IOReactorConfig ioReactorConfig = IOReactorConfig.custom()
+                .setIoThreadCount(apiProperties.getIoThreads())
+                .setSoTimeout(Timeout.ofMilliseconds(apiProperties.getResponseTimeoutMillis()))
+                .build();
+
+        httpClient = HttpAsyncClients.custom()
+                .setConnectionManager(connectionManager)
+                .setDefaultRequestConfig(requestConfig)
+                .setIOReactorConfig(ioReactorConfig)
+                .build();
+        httpClient.start();
+
+        fundType = objectMapper.constructType(Fund.class);
+        navType = objectMapper.constructType(FundNav.class);
+        holdingsType = objectMapper.getTypeFactory().constructCollectionType(List.class, FundStock.class);
+        quotesType = objectMapper.getTypeFactory().constructCollectionType(List.class, StockQuote.class);
+        log.info("基金数据HTTP客户端启动完成，接口地址：{}, 最大连接数：{}", 
+                apiProperties.getFundDataUrl(), apiProperties.getMaxConnections());
+    }
+
+    @PreDestroy
+    public void destroy() {
+        if (httpClient != null) {
+            httpClient.close(CloseMode.GRACEFUL);
+        }
+    }
+
+    @Override
+    public CompletableFuture<Fund> fetchFund(String fundCode) {
+        return execute(apiProperties.getFundDataUrl() + "/" + fundCode, fundType);
+    }
+
+    @Override
+    public CompletableFuture<FundNav> fetchLatestNav(String fundCode) {
+        return execute(apiProperties.getFundDataUrl() + "/" + fundCode + "/nav", navType);
+    }
+
+    @Override
+    public CompletableFuture<List<FundStock>> fetchHoldings(String fundCode) {
+        return execute(apiProperties.getFundDataUrl() + "/" + fundCode + "/holdings", holdingsType);
+    }
+
+    @Override
+    public CompletableFuture<Map<String, StockQuote>> fetchStockQuotes(List<String> stockCodes) {
+        String url = apiProperties.getFundDataUrl() + "/quotes?codes=" + String.join(",", stockCodes);
+        return this.<List<StockQuote>>execute(url, quotesType).thenApply(quotes -> {
+            Map<String, StockQuote> quoteByCode = new HashMap<>(quotes.size() * 2);
+            for (StockQuote quote : quotes) {
+                quoteByCode.put(quote.getStockCode(), quote);
+            }
+            return quoteByCode;
+        });
+    }
+
+    /**
+     * 发起异步GET请求，响应体以流式方式反序列化
+     */
+    private <T> CompletableFuture<T> execute(String url, JavaType resultType) {
+        AsyncRequestBuilder requestBuilder = AsyncRequestBuilder.get(url)
+                .addHeader("Accept", "application/json");
+        if (apiProperties.getApiKey() != null) {
+            requestBuilder.addHeader(API_KEY_HEADER, apiProperties.getApiKey());
+        }
+        AsyncRequestProducer requestProducer = requestBuilder.build();
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        httpClient.execute(requestProducer, new JsonStreamingResponseConsumer<T>(objectMapper, resultType, url),
+                new FutureCallback<T>() {
+                    @Override
+                    public void completed(T result) {
+                        future.complete(result);
+                    }
+
+                    @Override
+                    public void failed(Exception e) {
+                        log.warn("调用基金数据接口失败，地址：{}, 错误原因：{}", url, e.getMessage());
+                        future.completeExceptionally(e);
+                    }
+
+                    @Override
+                    public void cancelled() {
+                        future.cancel(false);
+                    }
+                });
+        return future;
+    }
+}
@@ -0,0 +1,104 @@
+package com.example.myfunds.provider;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteArrayFeeder;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.util.TokenBuffer;
+import org.apache.hc.client5.http.async.methods.AbstractBinResponseConsumer;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpException;
+import org.apache.hc.core5.http.HttpResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+
+/**
+ * 流式JSON响应消费者
+ * 响应体到达一段即交给 Jackson 非阻塞解析器解析一段，只保留解析后的 token，
+ * 不在内存中拼接完整的响应体字符串
+ * @param <T> 反序列化目标类型
+ */
+public class JsonStreamingResponseConsumer<T> extends AbstractBinResponseConsumer<T> {
+
+    private static final int CHUNK_SIZE = 8192;
+
+    private final ObjectMapper objectMapper;
+    private final JavaType resultType;
+    private final String url;
+    private final byte[] chunk = new byte[CHUNK_SIZE];
+
+    private JsonParser parser;
+    private TokenBuffer tokens;
+
+    public JsonStreamingResponseConsumer(ObjectMapper objectMapper, JavaType resultType, String url) {
+        this.objectMapper = objectMapper;
+        this.resultType = resultType;
+        this.url = url;
+    }
+
+    @Override
+    protected void start(HttpResponse response, ContentType contentType) throws HttpException, IOException {
+        if (response.getCode() >= 300) {
+            throw new HttpException("基金数据接口返回异常状态码：" + response.getCode());
+        }
+        parser = objectMapper.getFactory().createNonBlockingByteArrayParser();
+        tokens = new TokenBuffer(objectMapper, false);
+    }
+
+    @Override
+    protected int capacityIncrement() {
+        return CHUNK_SIZE;
+    }
+
+    @Override
+    protected void data(ByteBuffer src, boolean endOfStream) throws IOException {
+        ByteArrayFeeder feeder = (ByteArrayFeeder) parser.getNonBlockingInputFeeder();
+        while (src.hasRemaining()) {
+            int length = Math.min(src.remaining(), chunk.length);
+            src.get(chunk, 0, length);
+            feeder.feedInput(chunk, 0, length);
+            drainTokens();
+        }
+        if (endOfStream) {
+            feeder.endOfInput();
+            drainTokens();
+        }
+    }
+
+    /**
+     * 将已可解析的 token 转存到缓冲区，直到解析器需要更多输入
+     */
+    private void drainTokens() throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            tokens.copyCurrentEvent(parser);
+        }
+    }
+
+    @Override
+    protected T buildResult() {
+        if (tokens == null || tokens.firstToken() == null) {
+            throw new RuntimeException("基金数据接口响应体为空，地址：" + url);
+        }
+        try (JsonParser tokenParser = tokens.asParser(objectMapper)) {
+            return objectMapper.readValue(tokenParser, resultType);
+        } catch (IOException e) {
+            throw new UncheckedIOException("解析基金数据接口响应失败", e);
+        }
+    }
+
+    @Override
+    public void releaseResources() {
+        if (parser != null) {
+            try {
+                parser.close();
+            } catch (IOException ignored) {
+                // 关闭解析器失败不影响结果
+            }
+            parser = null;
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.example.myfunds.provider;
+
+import com.example.myfunds.dto.FundNav;
+import com.example.myfunds.dto.StockQuote;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundStock;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 本地模拟数据提供方
+ * 未接入外部接口时使用，也作为本地桩服务的数据来源
+ */
+@Component
+@ConditionalOnProperty(name = "myfunds.api.provider", havingValue = "simulated", matchIfMissing = true)
+public class SimulatedFundDataProvider implements FundDataProvider {
+
+    @Override
+    public CompletableFuture<Fund> fetchFund(String fundCode) {
+        return CompletableFuture.completedFuture(simulateFund(fundCode));
+    }
+
+    @Override
+    public CompletableFuture<FundNav> fetchLatestNav(String fundCode) {
+        return CompletableFuture.completedFuture(simulateNav(fundCode));
+    }
+
+    @Override
+    public CompletableFuture<List<FundStock>> fetchHoldings(String fundCode) {
+        return CompletableFuture.completedFuture(simulateHoldings(fundCode));
+    }
+
+    @Override
+    public CompletableFuture<Map<String, StockQuote>> fetchStockQuotes(List<String> stockCodes) {
+        Map<String, StockQuote> quotes = new HashMap<>();
+        for (StockQuote quote : simulateQuotes(stockCodes)) {
+            quotes.put(quote.getStockCode(), quote);
+        }
+        return CompletableFuture.completedFuture(quotes);
+    }
+
+    /**
+     * 生成模拟的基金基本信息
+     */
+    public Fund simulateFund(String fundCode) {
+        Fund fund = new Fund();
+        fund.setFundCode(fundCode);
+        fund.setFundName("模拟基金 - " + fundCode);
+        fund.setFundType("股票型");
+        fund.setManager("张经理");
+        fund.setEstablishDate(LocalDateTime.now().minusYears(5));
+        fund.setLatestNav(1.5 + Math.random() * 1.0);
+        fund.setDayGrowth((Math.random() - 0.5) * 10);
+        fund.setNavDate(LocalDate.now());
+        fund.setWeekGrowth((Math.random() - 0.5) * 15);
+        fund.setMonthGrowth((Math.random() - 0.5) * 30);
+        fund.setQuarterGrowth((Math.random() - 0.5) * 50);
+        fund.setYearGrowth((Math.random() - 0.5) * 100);
+        return fund;
+    }
+
+    /**
+     * 生成模拟的最新净值
+     */
+    public FundNav simulateNav(String fundCode) {
+        FundNav nav = new FundNav();
+        nav.setFundCode(fundCode);
+        nav.setLatestNav(1.5 + Math.random() * 1.0);
+        nav.setDayGrowth((Math.random() - 0.5) * 10);
+        nav.setNavDate(LocalDate.now());
+        return nav;
+    }
+
+    /**
+     * 生成模拟的持仓股票数据
+     */
+    public List<FundStock> simulateHoldings(String fundCode) {
+        List<FundStock> stockHoldings = new ArrayList<>();
+        
+        // 持仓按季度披露，报告期取上一个季度末
+        LocalDate today = LocalDate.now();
+        LocalDate quarterStart = today.withMonth((today.getMonthValue() - 1) / 3 * 3 + 1).withDayOfMonth(1);
+        LocalDateTime reportDate = quarterStart.minusDays(1).atStartOfDay();
+        
+        // 模拟10只股票持仓
+        for (int i = 1; i <= 10; i++) {
+            FundStock stock = new FundStock();
+            stock.setStockCode("60000" + i);
+            stock.setStockName("模拟股票" + i);
+            stock.setHoldingRatio(10.0 - i * 0.5);
+            stock.setStockPrice(10 + Math.random() * 90);
+            stock.setDayGrowth((Math.random() - 0.5) * 10);
+            stock.setHoldingValue(10000000.0 * (11 - i));
+            stock.setReportDate(reportDate);
+            stockHoldings.add(stock);
+        }
+        
+        return stockHoldings;
+    }
+
+    /**
+     * 生成模拟的股票行情
+     */
+    public List<StockQuote> simulateQuotes(List<String> stockCodes) {
+        List<StockQuote> quotes = new ArrayList<>(stockCodes.size());
+        for (String stockCode : stockCodes) {
+            StockQuote quote = new StockQuote();
+            quote.setStockCode(stockCode);
+            quote.setStockPrice(10 + Math.random() * 90);
+            quote.setDayGrowth((Math.random() - 0.5) * 10);
+            quotes.add(quote);
+        }
+        return quotes;
+    }
+}
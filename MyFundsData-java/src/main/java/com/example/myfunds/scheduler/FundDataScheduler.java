@@ -1,12 +1,30 @@
 package com.example.myfunds.scheduler;
 
+import com.example.myfunds.calendar.TradingCalendar;
+import com.example.myfunds.dto.FixedInvestmentRunSummary;
+import com.example.myfunds.dto.FundRefreshSummary;
+import com.example.myfunds.dto.HoldingRebuildSummary;
+import com.example.myfunds.dto.ScheduledTaskStatus;
 import com.example.myfunds.service.FundDataService;
 import com.example.myfunds.service.FundTradeService;
+import com.example.myfunds.service.HoldingProjectionService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.support.CronExpression;
 import org.springframework.stereotype.Component;
 
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 基金数据定时任务，按交易日历安排：
+ * 交易时段内高频执行轻量的实时估值更新，收盘后执行一次完整的净值刷新，非交易日不执行
+ */
 @Component
 @Slf4j
 public class FundDataScheduler {
@@ -17,34 +35,137 @@ public class FundDataScheduler {
     @Autowired
     private FundTradeService fundTradeService;
 
+    @Autowired
+    private HoldingProjectionService holdingProjectionService;
+
+    @Autowired
+    private TradingCalendar tradingCalendar;
+
+    /**
+     * 盘中估值更新间隔（毫秒）
+     */
+    @Value("${myfunds.trading.intraday-interval-millis:60000}")
+    private long intradayIntervalMillis;
+
     /**
-     * 每天上午9:30更新所有基金数据
-     * 表达式：秒 分 时 日 月 周
+     * 收盘后净值刷新的执行时间
      */
-    @Scheduled(cron = "0 30 9 * * ?")
-    public void updateFundDataDaily() {
-        log.info("开始执行每日基金数据更新任务");
-        fundDataService.updateAllFundsData();
-        log.info("每日基金数据更新任务完成");
+    @Value("${myfunds.trading.nav-refresh-cron:0 30 20 * * ?}")
+    private String navRefreshCron;
+
+    private final ScheduledTaskStatus intradayStatus = new ScheduledTaskStatus("盘中估值更新");
+
+    private final ScheduledTaskStatus navRefreshStatus = new ScheduledTaskStatus("收盘后净值刷新");
+
+    @PostConstruct
+    public void init() {
+        LocalDateTime now = LocalDateTime.now();
+        intradayStatus.setNextPlannedRun(tradingCalendar.nextSessionStart(now));
+        navRefreshStatus.setNextPlannedRun(nextNavRefresh(now));
+    }
+
+    /**
+     * 交易时段内定期获取持仓股票行情，更新实时估值，不写入基金和持仓数据
+     */
+    @Scheduled(fixedDelayString = "${myfunds.trading.intraday-interval-millis:60000}")
+    public void updateIntradayEstimates() {
+        LocalDateTime now = LocalDateTime.now();
+        String closedReason = tradingCalendar.describeClosed(now);
+        if (closedReason != null) {
+            markSkipped(intradayStatus, now, closedReason, tradingCalendar.nextSessionStart(now));
+            return;
+        }
+        int quoteCount = fundDataService.updateIntradayEstimates();
+        LocalDateTime next = now.plusNanos(intradayIntervalMillis * 1_000_000);
+        markRan(intradayStatus, now, "更新股票行情数量：" + quoteCount, tradingCalendar.nextSessionStart(next));
     }
 
     /**
-     * 每天下午15:00执行定投计划
+     * 交易日收盘后刷新本节点分片内基金的净值、持仓等完整数据
+     */
+    @Scheduled(cron = "${myfunds.trading.nav-refresh-cron:0 30 20 * * ?}")
+    public void refreshNavAfterClose() {
+        LocalDateTime now = LocalDateTime.now();
+        if (!tradingCalendar.isTradingDay(now.toLocalDate())) {
+            String reason = tradingCalendar.describeClosed(now);
+            log.info("非交易日，跳过收盘后净值刷新，原因：{}", reason);
+            markSkipped(navRefreshStatus, now, reason, nextNavRefresh(now));
+            return;
+        }
+        log.info("开始执行收盘后净值刷新任务");
+        FundRefreshSummary summary = fundDataService.updateLocalShardFundsData();
+        log.info("收盘后净值刷新任务完成，成功：{}, 失败：{}, 跳过：{}, 重估持仓：{}, 重估耗时：{}ms, 耗时：{}ms", 
+                summary.getSucceeded(), summary.getFailed(), summary.getSkipped(), 
+                summary.getRevaluedHoldings(), summary.getRevalueElapsedMillis(), summary.getElapsedMillis());
+        markRan(navRefreshStatus, now, String.format("成功：%d, 失败：%d, 耗时：%dms", 
+                summary.getSucceeded(), summary.getFailed(), summary.getElapsedMillis()), nextNavRefresh(now));
+    }
+
+    /**
+     * 每天下午15:00补充执行遗漏的到期定投计划
+     * 定投计划平时由 FixedInvestmentTimer 按各自的执行时间触发，此处兜底处理其他实例新建或执行失败后仍未执行的计划；
+     * 每个实例都会执行，与各实例的定时器并发时由执行批次内的行锁认领保证同一计划只执行一次
      */
     @Scheduled(cron = "0 0 15 * * ?")
     public void executeFixedInvestments() {
         log.info("开始执行每日定投计划");
-        fundTradeService.executeFixedInvestments();
-        log.info("每日定投计划执行完成");
+        FixedInvestmentRunSummary summary = fundTradeService.executeFixedInvestments();
+        log.info("每日定投计划执行完成，总数：{}, 成功：{}, 失败：{}, 耗时：{}ms", 
+                summary.getTotal(), summary.getSucceeded(), summary.getFailed(), summary.getElapsedMillis());
+    }
+
+    /**
+     * 每天凌晨从快照回放交易核对全部用户持仓并刷新快照，只记录不一致的持仓，不做修正
+     */
+    @Scheduled(cron = "${myfunds.holding.snapshot-cron:0 0 2 * * ?}")
+    public void snapshotHoldings() {
+        log.info("开始核对用户持仓并刷新快照");
+        HoldingRebuildSummary summary = holdingProjectionService.rebuildAll(false, true);
+        log.info("用户持仓核对完成，用户数量：{}, 不一致持仓：{}, 失败：{}, 耗时：{}ms", 
+                summary.getUserCount(), summary.getMismatchedHoldings(), summary.getFailedUsers(), 
+                summary.getElapsedMillis());
     }
 
     /**
-     * 每小时更新一次基金数据（可选，用于测试）
+     * 获取各任务的运行状态及下一次计划执行时间
      */
-    @Scheduled(cron = "0 0 * * * ?")
-    public void updateFundDataHourly() {
-        log.info("开始执行每小时基金数据更新任务");
-        fundDataService.updateAllFundsData();
-        log.info("每小时基金数据更新任务完成");
+    public List<ScheduledTaskStatus> getTaskStatuses() {
+        List<ScheduledTaskStatus> statuses = new ArrayList<>();
+        for (ScheduledTaskStatus status : new ScheduledTaskStatus[]{intradayStatus, navRefreshStatus}) {
+            ScheduledTaskStatus copy = new ScheduledTaskStatus();
+            synchronized (status) {
+                BeanUtils.copyProperties(status, copy);
+            }
+            statuses.add(copy);
+        }
+        return statuses;
+    }
+
+    /**
+     * 当前时间之后、落在交易日上的下一次净值刷新时间
+     */
+    private LocalDateTime nextNavRefresh(LocalDateTime time) {
+        CronExpression cron = CronExpression.parse(navRefreshCron);
+        LocalDateTime next = cron.next(time);
+        while (next != null && !tradingCalendar.isTradingDay(next.toLocalDate())) {
+            next = cron.next(next);
+        }
+        return next;
+    }
+
+    private void markRan(ScheduledTaskStatus status, LocalDateTime time, String result, LocalDateTime next) {
+        synchronized (status) {
+            status.setLastRunTime(time);
+            status.setLastResult(result);
+            status.setNextPlannedRun(next);
+        }
+    }
+
+    private void markSkipped(ScheduledTaskStatus status, LocalDateTime time, String reason, LocalDateTime next) {
+        synchronized (status) {
+            status.setLastSkipTime(time);
+            status.setLastSkipReason(reason);
+            status.setNextPlannedRun(next);
+        }
     }
-}
\ No newline at end of file
+}
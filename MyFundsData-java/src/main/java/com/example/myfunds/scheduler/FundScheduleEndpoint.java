@@ -0,0 +1,26 @@
+package com.example.myfunds.scheduler;
+
+import com.example.myfunds.dto.ScheduledTaskStatus;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+/**
+ * 定时任务状态监控端点：/actuator/fundschedule
+ * 展示各任务的下一次计划执行时间、最近一次执行结果及跳过原因
+ */
+@Component
+@Endpoint(id = "fundschedule")
+public class FundScheduleEndpoint {
+
+    @Autowired
+    private FundDataScheduler fundDataScheduler;
+
+    @ReadOperation
+    public List<ScheduledTaskStatus> taskStatuses() {
+        return fundDataScheduler.getTaskStatuses();
+    }
+}
@@ -1,5 +1,6 @@
 package com.example.myfunds.service;
 
+import com.example.myfunds.dto.FundRefreshSummary;
 import com.example.myfunds.entity.Fund;
 import com.example.myfunds.entity.FundStock;
 
@@ -16,6 +17,11 @@ public interface FundDataService {
      */
     List<FundStock> getFundStockHoldings(String fundCode);
 
+    /**
+     * 根据基金代码获取各报告期的历史持仓快照
+     */
+    List<FundStock> getFundStockHistory(String fundCode);
+
     /**
      * 刷新基金数据并保存到数据库
      */
@@ -24,5 +30,21 @@ public interface FundDataService {
     /**
      * 更新所有基金的最新数据
      */
-    void updateAllFundsData();
+    FundRefreshSummary updateAllFundsData();
+
+    /**
+     * 更新归属当前节点分片的基金，多实例部署时各节点只刷新自己的分片
+     */
+    FundRefreshSummary updateLocalShardFundsData();
+
+    /**
+     * 盘中轻量更新：只获取估值索引中股票的最新行情并更新实时估值，不写入基金和持仓数据
+     * @return 成功获取行情的股票数量
+     */
+    int updateIntradayEstimates();
+
+    /**
+     * 并行刷新指定基金，每只基金在独立事务中提交
+     */
+    FundRefreshSummary refreshFunds(List<String> fundCodes);
 }
\ No newline at end of file
@@ -0,0 +1,36 @@
+package com.example.myfunds.service;
+
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundNavHistory;
+
+import java.time.LocalDate;
+import java.util.List;
+
+public interface FundNavHistoryService {
+    /**
+     * 批量追加净值历史，同一基金同一天重复写入时覆盖，可安全重试
+     */
+    int appendNavs(List<FundNavHistory> navs);
+
+    /**
+     * 追加单条净值历史
+     */
+    void appendNav(Long fundId, LocalDate navDate, Double nav, Double dayGrowth);
+
+    /**
+     * 从数据库全量导出每只基金的净值历史文件，覆盖已有文件
+     * @return 导出的基金数量
+     */
+    int exportNavFiles();
+
+    /**
+     * 根据基金代码查询指定日期区间的净值历史，按日期升序
+     */
+    List<FundNavHistory> getNavHistory(String fundCode, LocalDate fromDate, LocalDate toDate);
+
+    /**
+     * 基于已存储的净值历史计算周、月、季、年涨幅并写入基金对象
+     * 历史不足某一区间时保留基金对象上原有的值
+     */
+    void applyPeriodGrowths(Fund fund, LocalDate navDate);
+}
@@ -0,0 +1,16 @@
+package com.example.myfunds.service;
+
+import com.example.myfunds.entity.Fund;
+
+public interface FundNavService {
+    /**
+     * 根据基金代码获取用于交易定价的基金信息
+     * 净值在允许的时效内直接使用，过期时仅拉取最新净值，基金不存在时执行完整刷新
+     */
+    Fund resolveFund(String fundCode);
+
+    /**
+     * 根据基金ID获取用于交易定价的基金信息
+     */
+    Fund resolveFundById(Long fundId);
+}
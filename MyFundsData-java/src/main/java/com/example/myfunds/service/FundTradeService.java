@@ -1,9 +1,13 @@
 package com.example.myfunds.service;
 
+import com.example.myfunds.dto.FixedInvestmentRunSummary;
+import com.example.myfunds.dto.OrderSettlementSummary;
+import com.example.myfunds.dto.TransactionPage;
 import com.example.myfunds.entity.FixedInvestment;
 import com.example.myfunds.entity.FundTransaction;
 import com.example.myfunds.entity.UserFund;
 
+import java.time.LocalDate;
 import java.util.List;
 
 public interface FundTradeService {
@@ -13,12 +17,12 @@ public interface FundTradeService {
     UserFund addFundHolding(Long userId, String fundCode, Double shares, Double costPrice);
 
     /**
-     * 加仓操作
+     * 加仓操作，提交待结算的买入委托，按确认净值结算后计入持仓
      */
     FundTransaction buyFund(Long userId, String fundCode, Double amount);
 
     /**
-     * 减仓操作
+     * 减仓操作，提交待结算的卖出委托，按确认净值结算后扣减持仓
      */
     FundTransaction sellFund(Long userId, String fundCode, Double shares);
 
@@ -48,9 +52,16 @@ public interface FundTradeService {
     List<UserFund> getUserFunds(Long userId);
 
     /**
-     * 获取用户的交易记录
+     * 按游标分页获取用户的交易记录，按交易时间倒序
+     * @param fundCode 基金代码，可选；基金不存在时返回空页
+     * @param transactionType 交易类型，可选
+     * @param from 起始日期（含），可选
+     * @param to 截止日期（含），可选
+     * @param cursor 上一页返回的游标，为空时读取第一页
+     * @param limit 每页数量
      */
-    List<FundTransaction> getUserTransactions(Long userId);
+    TransactionPage getUserTransactions(Long userId, String fundCode, String transactionType,
+                                        LocalDate from, LocalDate to, String cursor, Integer limit);
 
     /**
      * 获取用户的定投计划
@@ -58,7 +69,12 @@ public interface FundTradeService {
     List<FixedInvestment> getUserFixedInvestments(Long userId);
 
     /**
-     * 执行定投计划
+     * 执行到期的定投计划
      */
-    void executeFixedInvestments();
-}
\ No newline at end of file
+    FixedInvestmentRunSummary executeFixedInvestments();
+
+    /**
+     * 立即结算最近一个已收盘交易日收盘前提交的待结算委托，尚未公布该日净值的基金顺延
+     */
+    OrderSettlementSummary settlePendingOrders();
+}
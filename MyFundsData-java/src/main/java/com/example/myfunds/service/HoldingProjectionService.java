@@ -0,0 +1,31 @@
+package com.example.myfunds.service;
+
+import com.example.myfunds.dto.HoldingAuditResult;
+import com.example.myfunds.dto.HoldingRebuildSummary;
+import com.example.myfunds.entity.UserFund;
+
+import java.util.List;
+
+/**
+ * 持仓投影服务
+ * 用户持仓是交易记录的投影：从最近的持仓快照出发，按交易ID顺序回放其后的已成功交易得到
+ */
+public interface HoldingProjectionService {
+    /**
+     * 计算用户当前持仓的投影（仅包含份额大于 0 的持仓，市值按基金最新净值计算）
+     */
+    List<UserFund> projectHoldings(Long userId);
+
+    /**
+     * 核对用户持仓表与交易记录投影
+     * @param repair 是否以投影修正持仓表，同时在快照之后有新的已确认交易时刷新快照；为 false 时只读
+     */
+    HoldingAuditResult auditUser(Long userId, boolean repair);
+
+    /**
+     * 按用户分区并行核对全部用户的持仓
+     * @param repair 是否以投影修正持仓表
+     * @param saveSnapshots 是否在快照之后有新的已确认交易时刷新快照；与 repair 均为 false 时只读
+     */
+    HoldingRebuildSummary rebuildAll(boolean repair, boolean saveSnapshots);
+}
@@ -0,0 +1,35 @@
+package com.example.myfunds.service;
+
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.UserPortfolio;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 用户资产汇总服务
+ * 汇总随交易、净值重估和估值写回按受影响的用户增量重算，读取时不扫描持仓
+ */
+public interface PortfolioService {
+    /**
+     * 获取用户资产汇总，优先读取缓存
+     */
+    UserPortfolio getPortfolio(Long userId);
+
+    /**
+     * 重算指定用户的资产汇总，在调用方事务中执行，提交后失效缓存
+     */
+    void refreshUsers(Collection<Long> userIds);
+
+    /**
+     * 重算持有指定基金的全部用户的资产汇总，在调用方事务中执行，提交后失效这些用户的缓存
+     */
+    void refreshByFunds(Collection<Long> fundIds);
+
+    /**
+     * 按基金估值变化增量调整持有用户的当日预估收益，其余汇总字段不变
+     * 须在写回 FUND 估值之前、与写回在同一事务中调用，提交后失效受影响用户的缓存
+     * @param funds 基金ID及新的预估涨跌幅
+     */
+    void applyEstimateChanges(List<Fund> funds);
+}
@@ -1,57 +1,181 @@
 package com.example.myfunds.service.impl;
 
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.cluster.FundShardRouter;
+import com.example.myfunds.dto.FundEstimate;
+import com.example.myfunds.dto.FundRefreshSummary;
+import com.example.myfunds.dto.StockQuote;
 import com.example.myfunds.entity.Fund;
 import com.example.myfunds.entity.FundStock;
+import com.example.myfunds.estimate.FundEstimateEngine;
 import com.example.myfunds.mapper.FundMapper;
 import com.example.myfunds.mapper.FundStockMapper;
+import com.example.myfunds.provider.FundDataProvider;
 import com.example.myfunds.service.FundDataService;
+import com.example.myfunds.service.FundNavHistoryService;
+import com.example.myfunds.utils.SingleFlight;
+import com.example.myfunds.valuation.HoldingRevaluer;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
 import lombok.extern.slf4j.Slf4j;
-import org.apache.hc.client5.http.classic.methods.HttpGet;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
-import org.apache.hc.client5.http.impl.classic.HttpClients;
-import org.apache.hc.core5.http.HttpEntity;
-import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.springframework.beans.BeanUtils;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
-import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
 
-import java.io.IOException;
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Semaphore;
+import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class FundDataServiceImpl implements FundDataService {
 
+    /**
+     * 比较持仓比例（%）时允许的误差，接口公布两位小数，差异不足半个最小单位视为舍入
+     */
+    private static final double HOLDING_RATIO_TOLERANCE = 0.005;
+
     @Autowired
     private FundMapper fundMapper;
 
     @Autowired
     private FundStockMapper fundStockMapper;
 
+    @Autowired
+    private FundDataProvider fundDataProvider;
+
+    @Autowired
+    private FundCache fundCache;
+
+    @Autowired
+    private FundNavHistoryService fundNavHistoryService;
+
+    @Autowired
+    private FundShardRouter fundShardRouter;
+
+    @Autowired
+    private FundEstimateEngine fundEstimateEngine;
+
+    @Autowired
+    private HoldingRevaluer holdingRevaluer;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Autowired
+    @Qualifier("fundRefreshExecutor")
+    private Executor fundRefreshExecutor;
+
+    /**
+     * 每只基金刷新使用的独立事务，调用方已在事务中时同样新开事务，
+     * 保证合并刷新的结果在写入提交后才交给等待的调用方
+     */
+    private TransactionTemplate refreshTransactionTemplate;
+
+    /**
+     * 按基金代码合并并发的刷新请求，同一基金同时只执行一次刷新
+     */
+    private final SingleFlight<String, Fund> refreshSingleFlight = new SingleFlight<>();
+
+    /**
+     * 批量刷新时同时在途的外部接口请求上限
+     */
+    @Value("${myfunds.refresh.max-in-flight:256}")
+    private int maxInFlight;
+
+    /**
+     * 批量获取股票行情时单次请求的股票数量
+     */
+    @Value("${myfunds.refresh.quote-batch-size:200}")
+    private int quoteBatchSize;
+
+    /**
+     * 批量刷新时持仓构成的重新获取间隔，持仓按季度披露，间隔内使用已存储的持仓，行情由共享行情覆盖
+     */
+    @Value("${myfunds.refresh.holdings-interval:24h}")
+    private Duration holdingsInterval;
+
+    /**
+     * 基金代码 -> 最近一次从接口获取持仓的时间（毫秒）
+     */
+    private final Map<String, Long> holdingsFetchedAt = new ConcurrentHashMap<>();
+
+    @PostConstruct
+    public void init() {
+        refreshTransactionTemplate = new TransactionTemplate(transactionManager);
+        refreshTransactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        FunctionCounter.builder("myfunds.fund.refresh.executed", refreshSingleFlight, SingleFlight::getExecutedCount)
+                .description("实际执行的基金刷新次数")
+                .register(meterRegistry);
+        FunctionCounter.builder("myfunds.fund.refresh.coalesced", refreshSingleFlight, SingleFlight::getCoalescedCount)
+                .description("合并到在途刷新、未重复执行的调用次数")
+                .register(meterRegistry);
+        Gauge.builder("myfunds.fund.refresh.in-flight", refreshSingleFlight, SingleFlight::getInFlightCount)
+                .description("当前在途的基金刷新数量")
+                .register(meterRegistry);
+    }
+
     @Override
     public Fund getFundBasicInfo(String fundCode) {
         log.debug("开始获取基金基本信息，基金代码：{}", fundCode);
-        Optional<Fund> fundOptional = fundMapper.selectByFundCode(fundCode);
-        if (fundOptional.isPresent()) {
-            log.debug("从数据库获取基金基本信息成功，基金代码：{}", fundCode);
-            return fundOptional.get();
+        Fund fund = fundCache.getByCode(fundCode);
+        if (fund != null) {
+            log.debug("从缓存或数据库获取基金基本信息成功，基金代码：{}", fundCode);
+            return withLiveEstimate(fund);
         }
         // 如果数据库中没有，从外部API获取
         log.debug("数据库中未找到基金信息，从外部API获取，基金代码：{}", fundCode);
-        return fetchFundDataFromApi(fundCode);
+        return fundDataProvider.fetchFund(fundCode).join();
+    }
+
+    /**
+     * 以估值引擎中的实时估值覆盖基金估值字段，返回副本，不修改缓存中的对象
+     */
+    private Fund withLiveEstimate(Fund fund) {
+        FundEstimate estimate = fundEstimateEngine.getEstimate(fund.getId());
+        if (estimate == null) {
+            return fund;
+        }
+        Fund result = new Fund();
+        BeanUtils.copyProperties(fund, result);
+        result.setEstimatedDayGrowth(estimate.getEstimatedDayGrowth());
+        result.setEstimatedNav(estimate.getEstimatedNav());
+        result.setEstimatedProfit(estimate.getEstimatedProfit());
+        return result;
     }
 
     @Override
     public List<FundStock> getFundStockHoldings(String fundCode) {
         log.debug("开始获取基金持仓股票数据，基金代码：{}", fundCode);
-        Optional<Fund> fundOptional = fundMapper.selectByFundCode(fundCode);
-        if (fundOptional.isPresent()) {
-            List<FundStock> holdings = fundStockMapper.selectByFundId(fundOptional.get().getId());
+        Fund fund = fundCache.getByCode(fundCode);
+        if (fund != null) {
+            List<FundStock> holdings = fundCache.getHoldings(fund.getId());
             log.debug("获取基金持仓股票数据成功，基金代码：{}, 持仓数量：{}", fundCode, holdings.size());
             return holdings;
         }
@@ -60,20 +184,107 @@ public class FundDataServiceImpl implements FundDataService {
     }
 
     @Override
-    @Transactional
+    public List<FundStock> getFundStockHistory(String fundCode) {
+        log.debug("开始获取基金历史持仓快照，基金代码：{}", fundCode);
+        Fund fund = fundCache.getByCode(fundCode);
+        if (fund != null) {
+            List<FundStock> history = fundStockMapper.selectHistoryByFundId(fund.getId());
+            log.debug("获取基金历史持仓快照成功，基金代码：{}, 记录数量：{}", fundCode, history.size());
+            return history;
+        }
+        log.debug("未找到基金信息，无法获取历史持仓，基金代码：{}", fundCode);
+        return new ArrayList<>();
+    }
+
+    @Override
     public Fund refreshFundData(String fundCode) {
+        // 同一基金的并发刷新只执行一次，其余调用共享结果；
+        // 执行者在独立事务中写入并提交后才返回，事务回滚时等待的调用方收到同一异常，不会拿到未保存的数据
+        return refreshSingleFlight.execute(fundCode, () -> {
+            FetchedFundData data = fetchFundData(fundCode, true).join();
+            Fund savedFund = refreshTransactionTemplate.execute(
+                    status -> saveFundData(fundCode, data.fund, data.holdings));
+            // 净值已提交后重估持仓，与批量刷新一致，重估失败不影响刷新结果
+            try {
+                holdingRevaluer.revalue(Collections.singletonList(savedFund.getId()));
+            } catch (Exception e) {
+                log.error("持仓市值重估失败，基金代码：{}, 错误原因：{}", fundCode, e.getMessage(), e);
+            }
+            return savedFund;
+        });
+    }
+
+    /**
+     * 异步获取基金基本信息和持仓数据，两个请求并发发出
+     */
+    private CompletableFuture<FetchedFundData> fetchFundData(String fundCode, boolean forceHoldings) {
+        log.debug("步骤1：获取基金基本信息及持仓数据，基金代码：{}", fundCode);
+        List<FundStock> storedHoldings = forceHoldings ? null : storedHoldingsIfFresh(fundCode);
+        if (storedHoldings != null) {
+            return fundDataProvider.fetchFund(fundCode)
+                    .thenApply(fund -> new FetchedFundData(fund, storedHoldings));
+        }
+        return fundDataProvider.fetchFund(fundCode)
+                .thenCombine(fundDataProvider.fetchHoldings(fundCode), (fund, holdings) -> {
+                    holdingsFetchedAt.put(fundCode, System.currentTimeMillis());
+                    return new FetchedFundData(fund, holdings);
+                });
+    }
+
+    /**
+     * 持仓在获取间隔内且已有存储时返回其副本（随后由共享行情覆盖股价和涨跌幅），否则返回 null 表示需要从接口获取
+     */
+    private List<FundStock> storedHoldingsIfFresh(String fundCode) {
+        Long fetchedAt = holdingsFetchedAt.get(fundCode);
+        if (fetchedAt == null || System.currentTimeMillis() - fetchedAt >= holdingsInterval.toMillis()) {
+            return null;
+        }
+        Fund existing = fundCache.getByCode(fundCode);
+        if (existing == null) {
+            return null;
+        }
+        List<FundStock> stored = fundCache.getHoldings(existing.getId());
+        if (stored.isEmpty()) {
+            return null;
+        }
+        List<FundStock> copies = new ArrayList<>(stored.size());
+        for (FundStock stock : stored) {
+            FundStock copy = new FundStock();
+            BeanUtils.copyProperties(stock, copy);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    /**
+     * 保存已获取的基金数据，由调用方负责事务边界
+     */
+    private Fund saveFundData(String fundCode, Fund fund, List<FundStock> stockHoldings) {
         log.info("开始刷新基金数据，基金代码：{}", fundCode);
         
-        // 1. 获取基金基本信息
-        log.debug("步骤1：获取基金基本信息，基金代码：{}", fundCode);
-        Fund fund = fetchFundDataFromApi(fundCode);
+        // 持仓数据已随基金信息一并获取
+        if (stockHoldings == null) {
+            stockHoldings = new ArrayList<>();
+        }
+        
+        // 2. 先计算估值，与基金基本信息一次写入，每次刷新只写一次基金记录
+        log.debug("步骤2：计算基金估值，基金代码：{}", fundCode);
+        calculateFundEstimate(fund, stockHoldings);
         
-        // 2. 保存或更新基金基本信息
-        log.debug("步骤2：保存或更新基金基本信息，基金代码：{}", fundCode);
-        Optional<Fund> existingFund = fundMapper.selectByFundCode(fundCode);
+        // 3. 保存或更新基金基本信息及估值
+        log.debug("步骤3：保存或更新基金基本信息，基金代码：{}", fundCode);
+        Fund existingFund = fundCache.getByCode(fundCode);
         Fund savedFund;
-        if (existingFund.isPresent()) {
-            fund.setId(existingFund.get().getId());
+        // 净值日期以数据源返回为准，盘中刷新时最新净值仍是上一交易日的
+        LocalDate navDate = fund.getNavDate();
+        if (navDate == null) {
+            log.error("数据源未返回净值日期，基金代码：{}", fundCode);
+            throw new RuntimeException("基金净值日期缺失");
+        }
+        if (existingFund != null) {
+            fund.setId(existingFund.getId());
+            // 周、月、季、年涨幅由已存储的净值历史计算
+            fundNavHistoryService.applyPeriodGrowths(fund, navDate);
             fundMapper.update(fund);
             savedFund = fund;
             log.debug("更新基金基本信息成功，基金代码：{}", fundCode);
@@ -82,26 +293,17 @@ public class FundDataServiceImpl implements FundDataService {
             savedFund = fund;
             log.debug("插入基金基本信息成功，基金代码：{}", fundCode);
         }
+        fundNavHistoryService.appendNav(savedFund.getId(), navDate, savedFund.getLatestNav(), savedFund.getDayGrowth());
         
-        // 3. 获取并保存基金持仓数据
-        log.debug("步骤3：获取并保存基金持仓数据，基金代码：{}", fundCode);
-        List<FundStock> stockHoldings = fetchFundStockHoldingsFromApi(fundCode);
-        
-        // 4. 删除旧的持仓数据
-        log.debug("步骤4：删除旧的持仓数据，基金ID：{}", savedFund.getId());
-        fundStockMapper.deleteByFundId(savedFund.getId());
-        
-        // 5. 保存新的持仓数据
-        log.debug("步骤5：保存新的持仓数据，基金ID：{}, 持仓数量：{}", 
+        // 4. 与最新报告期快照比对，未变化时只更新行情字段，变化时写入新快照
+        log.debug("步骤4：保存持仓快照，基金ID：{}, 持仓数量：{}", 
                 savedFund.getId(), stockHoldings.size());
-        for (FundStock stock : stockHoldings) {
-            stock.setFund(savedFund);
-            fundStockMapper.insert(stock);
-        }
+        saveHoldingsSnapshot(savedFund, stockHoldings);
         
-        // 6. 计算并更新基金估值
-        log.debug("步骤6：计算并更新基金估值，基金ID：{}", savedFund.getId());
-        calculateFundEstimate(savedFund, stockHoldings);
+        // 5. 事务提交后替换缓存
+        savedFund.setUpdatedTime(LocalDateTime.now());
+        fundCache.replaceAfterCommit(savedFund, !stockHoldings.isEmpty());
+        fundEstimateEngine.refreshAfterCommit(savedFund, stockHoldings);
         
         log.info("基金数据刷新完成，基金代码：{}, 基金名称：{}", 
                 fundCode, savedFund.getFundName());
@@ -109,92 +311,336 @@ public class FundDataServiceImpl implements FundDataService {
     }
     
     /**
-     * 基于持仓股票计算基金估值
+     * 保存基金持仓快照
+     * 持仓按报告期保留历史版本：报告期与持仓构成均未变化时仅更新股价和涨跌幅，
+     * 出现新报告期时追加新快照，同一报告期构成被修正时替换该报告期快照
+     * @param fund 基金信息
+     * @param stockHoldings 最新获取的持仓股票列表
+     */
+    private void saveHoldingsSnapshot(Fund fund, List<FundStock> stockHoldings) {
+        if (stockHoldings.isEmpty()) {
+            log.debug("未获取到持仓数据，保留原有快照，基金ID：{}", fund.getId());
+            return;
+        }
+        for (FundStock stock : stockHoldings) {
+            stock.setFund(fund);
+        }
+
+        List<FundStock> latestSnapshot = fundStockMapper.selectByFundId(fund.getId());
+        LocalDateTime reportDate = stockHoldings.get(0).getReportDate();
+        LocalDateTime latestReportDate = latestSnapshot.isEmpty() ? null : latestSnapshot.get(0).getReportDate();
+        if (latestReportDate != null && reportDate != null && reportDate.isBefore(latestReportDate)) {
+            // 接口返回了已存储过的旧报告期，不写入，避免与该报告期已有快照的唯一键冲突
+            log.debug("持仓报告期早于已存储的最新报告期，跳过快照，基金ID：{}, 报告期：{}, 最新报告期：{}", 
+                    fund.getId(), reportDate, latestReportDate);
+            return;
+        }
+        boolean sameReportDate = latestReportDate != null && Objects.equals(latestReportDate, reportDate);
+
+        if (sameReportDate && isSameComposition(latestSnapshot, stockHoldings)) {
+            Map<String, Long> idByStockCode = new HashMap<>();
+            for (FundStock existing : latestSnapshot) {
+                idByStockCode.put(existing.getStockCode(), existing.getId());
+            }
+            for (FundStock stock : stockHoldings) {
+                stock.setId(idByStockCode.get(stock.getStockCode()));
+            }
+            fundStockMapper.updateQuotesBatch(stockHoldings);
+            log.debug("持仓构成未变化，仅更新行情字段，基金ID：{}, 报告期：{}", fund.getId(), reportDate);
+            return;
+        }
+
+        if (sameReportDate) {
+            // 同一报告期数据被修正，替换该报告期快照
+            fundStockMapper.deleteByFundIdAndReportDate(fund.getId(), reportDate);
+            log.debug("同一报告期持仓构成发生变化，替换快照，基金ID：{}, 报告期：{}", fund.getId(), reportDate);
+        } else {
+            log.debug("出现新的报告期，追加持仓快照，基金ID：{}, 报告期：{}", fund.getId(), reportDate);
+        }
+        fundStockMapper.insertBatch(stockHoldings);
+    }
+
+    /**
+     * 判断两份持仓的构成（股票代码及持仓比例）是否一致，持仓比例按 HOLDING_RATIO_TOLERANCE 比较，
+     * 避免数据库存储带来的浮点舍入被当作构成变化
+     */
+    private boolean isSameComposition(List<FundStock> existing, List<FundStock> incoming) {
+        if (existing.size() != incoming.size()) {
+            return false;
+        }
+        Map<String, Double> ratioByStockCode = new HashMap<>();
+        for (FundStock stock : existing) {
+            ratioByStockCode.put(stock.getStockCode(), stock.getHoldingRatio());
+        }
+        for (FundStock stock : incoming) {
+            if (!ratioByStockCode.containsKey(stock.getStockCode())
+                    || !sameRatio(ratioByStockCode.get(stock.getStockCode()), stock.getHoldingRatio())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean sameRatio(Double existing, Double incoming) {
+        if (existing == null || incoming == null) {
+            return existing == null && incoming == null;
+        }
+        return Math.abs(existing - incoming) < HOLDING_RATIO_TOLERANCE;
+    }
+
+    /**
+     * 基于持仓股票计算基金估值，只设置估值字段，由调用方随基金信息一并保存
      * @param fund 基金信息
      * @param stockHoldings 持仓股票列表
      */
     private void calculateFundEstimate(Fund fund, List<FundStock> stockHoldings) {
-        log.debug("开始计算基金估值，基金ID：{}", fund.getId());
+        log.debug("开始计算基金估值，基金代码：{}", fund.getFundCode());
         
         // 计算预估涨跌幅：根据各股票的持仓比例和涨跌幅加权平均
         double estimatedGrowth = 0.0;
         for (FundStock stock : stockHoldings) {
             estimatedGrowth += (stock.getHoldingRatio() / 100) * stock.getDayGrowth();
         }
-        log.debug("计算完成预估涨跌幅：{}%，基金ID：{}", estimatedGrowth, fund.getId());
+        log.debug("计算完成预估涨跌幅：{}%，基金代码：{}", estimatedGrowth, fund.getFundCode());
         
         // 计算预估净值
         double estimatedNav = fund.getLatestNav() * (1 + estimatedGrowth / 100);
-        log.debug("计算完成预估净值：{}，基金ID：{}", estimatedNav, fund.getId());
+        log.debug("计算完成预估净值：{}，基金代码：{}", estimatedNav, fund.getFundCode());
         
         // 计算预估收益（假设以当前最新净值买入10000元的收益）
         double investmentAmount = 10000.0;
         double shares = investmentAmount / fund.getLatestNav();
         double estimatedProfit = shares * (estimatedNav - fund.getLatestNav());
-        log.debug("计算完成预估收益：{}元（投资10000元），基金ID：{}", estimatedProfit, fund.getId());
+        log.debug("计算完成预估收益：{}元（投资10000元），基金代码：{}", estimatedProfit, fund.getFundCode());
         
         // 更新基金估值信息
         fund.setEstimatedDayGrowth(estimatedGrowth);
         fund.setEstimatedNav(estimatedNav);
         fund.setEstimatedProfit(estimatedProfit);
-        
-        // 保存到数据库
-        fundMapper.update(fund);
-        log.debug("基金估值计算完成并保存，基金ID：{}", fund.getId());
     }
 
     @Override
-    @Transactional
-    public void updateAllFundsData() {
-        List<Fund> allFunds = fundMapper.selectAll();
-        for (Fund fund : allFunds) {
-            refreshFundData(fund.getFundCode());
+    public FundRefreshSummary updateAllFundsData() {
+        List<String> fundCodes = fundMapper.selectAll().stream()
+                .map(Fund::getFundCode)
+                .collect(Collectors.toList());
+        FundRefreshSummary summary = refreshFunds(fundCodes);
+        log.info("所有基金数据更新完成，总数：{}, 成功：{}, 失败：{}, 跳过：{}, 耗时：{}ms",
+                summary.getTotal(), summary.getSucceeded(), summary.getFailed(),
+                summary.getSkipped(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    @Override
+    public FundRefreshSummary updateLocalShardFundsData() {
+        List<String> fundCodes = fundMapper.selectAll().stream()
+                .map(Fund::getFundCode)
+                .collect(Collectors.toList());
+        FundRefreshSummary summary = refreshFunds(fundShardRouter.filterLocal(fundCodes));
+        log.info("本节点分片基金数据更新完成，总数：{}, 成功：{}, 失败：{}, 跳过：{}, 耗时：{}ms",
+                summary.getTotal(), summary.getSucceeded(), summary.getFailed(),
+                summary.getSkipped(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    @Override
+    public int updateIntradayEstimates() {
+        List<String> stockCodes = fundEstimateEngine.getIndexedStockCodes();
+        if (stockCodes.isEmpty()) {
+            return 0;
+        }
+        Map<String, StockQuote> quotes = fetchQuotes(stockCodes);
+        log.debug("盘中估值更新完成，股票数：{}, 成功获取行情：{}", stockCodes.size(), quotes.size());
+        return quotes.size();
+    }
+
+    @Override
+    public FundRefreshSummary refreshFunds(List<String> fundCodes) {
+        FundRefreshSummary summary = new FundRefreshSummary();
+        summary.setStartTime(LocalDateTime.now());
+        summary.setTotal(fundCodes.size());
+        long startNanos = System.nanoTime();
+
+        // 过滤空代码并去重，保持原有顺序
+        Set<String> distinctCodes = new LinkedHashSet<>();
+        for (String fundCode : fundCodes) {
+            if (fundCode != null && !fundCode.trim().isEmpty()) {
+                distinctCodes.add(fundCode.trim());
+            }
+        }
+        summary.setSkipped(fundCodes.size() - distinctCodes.size());
+        log.info("开始批量刷新基金数据，提交数量：{}, 实际刷新数量：{}", fundCodes.size(), distinctCodes.size());
+
+        // 1. 获取阶段：外部接口请求异步并发发出，信号量限制同时在途的请求数，单只失败不影响其他基金
+        Semaphore inFlight = new Semaphore(maxInFlight);
+        List<String> failedCodes = new ArrayList<>();
+        Map<String, FetchedFundData> fetchedByCode = new LinkedHashMap<>();
+        List<CompletableFuture<Void>> fetchFutures = new ArrayList<>(distinctCodes.size());
+        for (String fundCode : distinctCodes) {
+            inFlight.acquireUninterruptibly();
+            CompletableFuture<FetchedFundData> fetched;
+            try {
+                fetched = fetchFundData(fundCode, false);
+            } catch (RuntimeException e) {
+                fetched = new CompletableFuture<>();
+                fetched.completeExceptionally(e);
+            }
+            fetchFutures.add(fetched
+                    .whenComplete((data, e) -> inFlight.release())
+                    .handle((data, e) -> {
+                        if (e != null) {
+                            recordFailure(failedCodes, fundCode, e);
+                        } else {
+                            synchronized (fetchedByCode) {
+                                fetchedByCode.put(fundCode, data);
+                            }
+                        }
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(fetchFutures.toArray(new CompletableFuture[0])).join();
+
+        // 2. 行情阶段：汇总所有基金持仓中的股票并去重，每只股票本周期只获取一次行情，供所有持有它的基金共享
+        Map<String, StockQuote> quotes = fetchSharedQuotes(fetchedByCode.values());
+
+        // 3. 保存阶段：以共享行情计算估值，交给工作线程在独立事务中提交；
+        //    信号量限制排队中的保存任务不超过线程池队列容量
+        List<Long> savedFundIds = new ArrayList<>(fetchedByCode.size());
+        List<CompletableFuture<Void>> saveFutures = new ArrayList<>(fetchedByCode.size());
+        for (Map.Entry<String, FetchedFundData> entry : fetchedByCode.entrySet()) {
+            String fundCode = entry.getKey();
+            FetchedFundData data = entry.getValue();
+            applyQuotes(data.holdings, quotes);
+            inFlight.acquireUninterruptibly();
+            saveFutures.add(CompletableFuture
+                    .runAsync(() -> {
+                        Fund savedFund = refreshSingleFlight.execute(fundCode, 
+                                () -> refreshTransactionTemplate.execute(
+                                        status -> saveFundData(fundCode, data.fund, data.holdings)));
+                        synchronized (savedFundIds) {
+                            savedFundIds.add(savedFund.getId());
+                        }
+                    }, fundRefreshExecutor)
+                    .whenComplete((v, e) -> inFlight.release())
+                    .exceptionally(e -> {
+                        recordFailure(failedCodes, fundCode, e);
+                        return null;
+                    }));
+        }
+        CompletableFuture.allOf(saveFutures.toArray(new CompletableFuture[0])).join();
+
+        // 4. 重估阶段：净值已提交的基金按批以关联更新重算全部持仓市值，重估失败不影响刷新结果
+        long revalueStartNanos = System.nanoTime();
+        try {
+            summary.setRevaluedHoldings(holdingRevaluer.revalue(savedFundIds));
+        } catch (Exception e) {
+            log.error("持仓市值重估失败，基金数量：{}, 错误原因：{}", savedFundIds.size(), e.getMessage(), e);
+        }
+        summary.setRevalueElapsedMillis(Duration.ofNanos(System.nanoTime() - revalueStartNanos).toMillis());
+
+        summary.setFailed(failedCodes.size());
+        summary.setFailedFundCodes(failedCodes);
+        summary.setSucceeded(distinctCodes.size() - failedCodes.size());
+        summary.setEndTime(LocalDateTime.now());
+        summary.setElapsedMillis(Duration.ofNanos(System.nanoTime() - startNanos).toMillis());
+        return summary;
+    }
+
+    private void recordFailure(List<String> failedCodes, String fundCode, Throwable e) {
+        log.error("基金数据刷新失败，基金代码：{}, 错误原因：{}", fundCode, e.getMessage(), e);
+        synchronized (failedCodes) {
+            failedCodes.add(fundCode);
         }
-        log.info("所有基金数据更新完成");
     }
 
     /**
-     * 从外部API获取基金基本信息
-     * 实际项目中替换为真实API调用
+     * 获取本周期所有持仓股票的行情，按批次并发请求，每只股票只请求一次
+     * 某一批次失败时记录日志，对应基金退回使用持仓接口返回的行情
      */
-    private Fund fetchFundDataFromApi(String fundCode) {
-        // 模拟API调用，返回基金数据
-        Fund fund = new Fund();
-        fund.setFundCode(fundCode);
-        fund.setFundName("模拟基金 - " + fundCode);
-        fund.setFundType("股票型");
-        fund.setManager("张经理");
-        fund.setEstablishDate(LocalDateTime.now().minusYears(5));
-        fund.setLatestNav(1.5 + Math.random() * 1.0);
-        fund.setDayGrowth((Math.random() - 0.5) * 10);
-        fund.setWeekGrowth((Math.random() - 0.5) * 15);
-        fund.setMonthGrowth((Math.random() - 0.5) * 30);
-        fund.setQuarterGrowth((Math.random() - 0.5) * 50);
-        fund.setYearGrowth((Math.random() - 0.5) * 100);
-        return fund;
+    private Map<String, StockQuote> fetchSharedQuotes(Collection<FetchedFundData> fetchedFunds) {
+        Set<String> stockCodes = new LinkedHashSet<>();
+        int holdingCount = 0;
+        for (FetchedFundData data : fetchedFunds) {
+            if (data.holdings != null) {
+                for (FundStock stock : data.holdings) {
+                    stockCodes.add(stock.getStockCode());
+                }
+                holdingCount += data.holdings.size();
+            }
+        }
+        if (stockCodes.isEmpty()) {
+            return new HashMap<>();
+        }
+        Map<String, StockQuote> quotes = fetchQuotes(new ArrayList<>(stockCodes));
+        log.info("股票行情获取完成，持仓记录数：{}, 去重后股票数：{}, 成功获取：{}", 
+                holdingCount, stockCodes.size(), quotes.size());
+        return quotes;
     }
 
     /**
-     * 从外部API获取基金持仓股票数据
-     * 实际项目中替换为真实API调用
+     * 按批次并发获取股票行情并推送给估值引擎，失败的批次只记录日志
+     * @param codes 已去重的股票代码
      */
-    private List<FundStock> fetchFundStockHoldingsFromApi(String fundCode) {
-        // 模拟API调用，返回基金持仓数据
-        List<FundStock> stockHoldings = new ArrayList<>();
-        
-        // 模拟10只股票持仓
-        for (int i = 1; i <= 10; i++) {
-            FundStock stock = new FundStock();
-            stock.setStockCode("60000" + i);
-            stock.setStockName("模拟股票" + i);
-            stock.setHoldingRatio(10.0 - i * 0.5);
-            stock.setStockPrice(10 + Math.random() * 90);
-            stock.setDayGrowth((Math.random() - 0.5) * 10);
-            stock.setHoldingValue(10000000.0 * (11 - i));
-            stock.setReportDate(LocalDateTime.now().minusMonths(1));
-            stockHoldings.add(stock);
+    private Map<String, StockQuote> fetchQuotes(List<String> codes) {
+        Map<String, StockQuote> quotes = new ConcurrentHashMap<>(codes.size() * 2);
+        List<CompletableFuture<Void>> batchFutures = new ArrayList<>();
+        for (int from = 0; from < codes.size(); from += quoteBatchSize) {
+            List<String> batch = codes.subList(from, Math.min(from + quoteBatchSize, codes.size()));
+            CompletableFuture<Map<String, StockQuote>> batchFuture;
+            try {
+                batchFuture = fundDataProvider.fetchStockQuotes(batch);
+            } catch (RuntimeException e) {
+                batchFuture = new CompletableFuture<>();
+                batchFuture.completeExceptionally(e);
+            }
+            batchFutures.add(batchFuture.handle((batchQuotes, e) -> {
+                if (e != null) {
+                    log.warn("批量获取股票行情失败，股票数量：{}, 错误原因：{}", batch.size(), e.getMessage());
+                } else {
+                    quotes.putAll(batchQuotes);
+                }
+                return null;
+            }));
+        }
+        CompletableFuture.allOf(batchFutures.toArray(new CompletableFuture[0])).join();
+
+        // 行情同时推送给估值引擎，未参与本次刷新的基金估值也随之更新
+        for (StockQuote quote : quotes.values()) {
+            if (quote.getDayGrowth() != null) {
+                fundEstimateEngine.onStockQuote(quote.getStockCode(), quote.getDayGrowth());
+            }
+        }
+        log.debug("股票行情批量获取完成，股票数：{}, 请求批次：{}, 成功获取：{}", 
+                codes.size(), batchFutures.size(), quotes.size());
+        return quotes;
+    }
+
+    /**
+     * 以共享行情覆盖持仓中的股价和涨跌幅
+     */
+    private void applyQuotes(List<FundStock> holdings, Map<String, StockQuote> quotes) {
+        if (holdings == null) {
+            return;
+        }
+        for (FundStock stock : holdings) {
+            StockQuote quote = quotes.get(stock.getStockCode());
+            if (quote != null) {
+                stock.setStockPrice(quote.getStockPrice());
+                stock.setDayGrowth(quote.getDayGrowth());
+            }
+        }
+    }
+
+    /**
+     * 一次外部接口获取到的基金数据
+     */
+    private static class FetchedFundData {
+        private final Fund fund;
+        private final List<FundStock> holdings;
+
+        FetchedFundData(Fund fund, List<FundStock> holdings) {
+            this.fund = fund;
+            this.holdings = holdings;
         }
-        
-        return stockHoldings;
     }
-}
\ No newline at end of file
+}
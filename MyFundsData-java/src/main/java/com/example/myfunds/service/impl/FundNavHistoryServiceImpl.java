@@ -0,0 +1,214 @@
+package com.example.myfunds.service.impl;
+
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundNavHistory;
+import com.example.myfunds.mapper.FundMapper;
+import com.example.myfunds.mapper.FundNavHistoryMapper;
+import com.example.myfunds.navstore.NavFileStore;
+import com.example.myfunds.navstore.NavSeries;
+import com.example.myfunds.service.FundNavHistoryService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+@Service
+@Slf4j
+public class FundNavHistoryServiceImpl implements FundNavHistoryService {
+
+    /**
+     * 单条 INSERT 语句写入的最大行数
+     */
+    private static final int UPSERT_BATCH_SIZE = 500;
+
+    /**
+     * 导出净值历史文件时的起始日期
+     */
+    private static final LocalDate EXPORT_FROM_DATE = LocalDate.of(1990, 1, 1);
+
+    @Autowired
+    private FundNavHistoryMapper fundNavHistoryMapper;
+
+    @Autowired
+    private FundMapper fundMapper;
+
+    @Autowired
+    private FundCache fundCache;
+
+    @Autowired
+    private NavFileStore navFileStore;
+
+    @Override
+    public int appendNavs(List<FundNavHistory> navs) {
+        int affected = 0;
+        for (int from = 0; from < navs.size(); from += UPSERT_BATCH_SIZE) {
+            affected += fundNavHistoryMapper.upsertBatch(navs.subList(from, Math.min(from + UPSERT_BATCH_SIZE, navs.size())));
+        }
+        for (FundNavHistory nav : navs) {
+            navFileStore.appendAfterCommit(nav.getFundId(), nav.getNavDate(), nav.getNav());
+        }
+        log.debug("净值历史写入完成，记录数：{}", navs.size());
+        return affected;
+    }
+
+    @Override
+    public void appendNav(Long fundId, LocalDate navDate, Double nav, Double dayGrowth) {
+        if (fundId == null || navDate == null || nav == null) {
+            return;
+        }
+        FundNavHistory history = new FundNavHistory();
+        history.setFundId(fundId);
+        history.setNavDate(navDate);
+        history.setNav(nav);
+        history.setDayGrowth(dayGrowth);
+        fundNavHistoryMapper.upsertBatch(Collections.singletonList(history));
+        navFileStore.appendAfterCommit(fundId, navDate, nav);
+    }
+
+    @Override
+    public int exportNavFiles() {
+        if (!navFileStore.isEnabled()) {
+            throw new RuntimeException("净值历史文件存储未启用");
+        }
+        long start = System.currentTimeMillis();
+        int exported = 0;
+        LocalDate toDate = LocalDate.now();
+        for (Fund fund : fundMapper.selectAll()) {
+            List<FundNavHistory> navs = fundNavHistoryMapper.selectRange(fund.getId(), EXPORT_FROM_DATE, toDate);
+            try {
+                navFileStore.rewrite(fund.getId(), navs);
+                exported++;
+            } catch (IOException e) {
+                log.error("导出净值历史文件失败，基金代码：{}, 错误原因：{}", fund.getFundCode(), e.getMessage(), e);
+            }
+        }
+        log.info("净值历史文件导出完成，基金数量：{}, 耗时：{}ms", exported, System.currentTimeMillis() - start);
+        return exported;
+    }
+
+    @Override
+    public List<FundNavHistory> getNavHistory(String fundCode, LocalDate fromDate, LocalDate toDate) {
+        Fund fund = fundCache.getByCode(fundCode);
+        if (fund == null) {
+            log.debug("未找到基金信息，无法获取净值历史，基金代码：{}", fundCode);
+            return new ArrayList<>();
+        }
+        List<FundNavHistory> history = readNavFile(fund.getId(), fromDate, toDate);
+        if (history != null) {
+            return history;
+        }
+        return fundNavHistoryMapper.selectRange(fund.getId(), fromDate, toDate);
+    }
+
+    /**
+     * 从净值历史文件读取日期区间内的净值，文件只存净值，日涨幅按相邻两日净值计算
+     * @return 净值历史；文件存储未启用、读取失败或文件中没有早于区间起点的记录（无法确认覆盖整个区间）时返回 null，由调用方查询数据库
+     */
+    private List<FundNavHistory> readNavFile(Long fundId, LocalDate fromDate, LocalDate toDate) {
+        NavSeries series = readSeries(fundId, toDate);
+        if (series == null) {
+            return null;
+        }
+        int previous = series.indexOnOrBefore(fromDate.minusDays(1));
+        if (previous < 0) {
+            return null;
+        }
+        List<FundNavHistory> history = new ArrayList<>(series.size() - previous - 1);
+        for (int i = previous + 1; i < series.size(); i++) {
+            FundNavHistory nav = new FundNavHistory();
+            nav.setFundId(fundId);
+            nav.setNavDate(series.getNavDate(i));
+            nav.setNav(series.getNav(i));
+            nav.setDayGrowth(growth(series.getNav(i), series.getNav(i - 1)));
+            history.add(nav);
+        }
+        return history;
+    }
+
+    /**
+     * 读取基金截至 toDate 的全部文件净值，文件存储未启用或读取失败时返回 null
+     */
+    private NavSeries readSeries(Long fundId, LocalDate toDate) {
+        if (!navFileStore.isEnabled()) {
+            return null;
+        }
+        try {
+            return navFileStore.read(fundId, EXPORT_FROM_DATE, toDate);
+        } catch (RuntimeException e) {
+            log.warn("读取净值历史文件失败，改为查询数据库，基金ID：{}, 错误原因：{}", fundId, e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public void applyPeriodGrowths(Fund fund, LocalDate navDate) {
+        if (fund.getId() == null || fund.getLatestNav() == null) {
+            return;
+        }
+        LocalDate weekDate = navDate.minusWeeks(1);
+        LocalDate monthDate = navDate.minusMonths(1);
+        LocalDate quarterDate = navDate.minusMonths(3);
+        LocalDate yearDate = navDate.minusYears(1);
+        Object weekNav;
+        Object monthNav;
+        Object quarterNav;
+        Object yearNav;
+        // 文件中有不晚于一年前的记录时四个区间起点都能从文件确定，否则查询数据库
+        NavSeries series = readSeries(fund.getId(), navDate);
+        if (series != null && series.indexOnOrBefore(yearDate) >= 0) {
+            weekNav = navOnOrBefore(series, weekDate);
+            monthNav = navOnOrBefore(series, monthDate);
+            quarterNav = navOnOrBefore(series, quarterDate);
+            yearNav = navOnOrBefore(series, yearDate);
+        } else {
+            Map<String, Object> baseNavs = fundNavHistoryMapper.selectPeriodBaseNavs(fund.getId(),
+                    weekDate, monthDate, quarterDate, yearDate);
+            if (baseNavs == null) {
+                return;
+            }
+            weekNav = baseNavs.get("WEEK_NAV");
+            monthNav = baseNavs.get("MONTH_NAV");
+            quarterNav = baseNavs.get("QUARTER_NAV");
+            yearNav = baseNavs.get("YEAR_NAV");
+        }
+        double nav = fund.getLatestNav();
+        Double weekGrowth = growth(nav, weekNav);
+        Double monthGrowth = growth(nav, monthNav);
+        Double quarterGrowth = growth(nav, quarterNav);
+        Double yearGrowth = growth(nav, yearNav);
+        if (weekGrowth != null) {
+            fund.setWeekGrowth(weekGrowth);
+        }
+        if (monthGrowth != null) {
+            fund.setMonthGrowth(monthGrowth);
+        }
+        if (quarterGrowth != null) {
+            fund.setQuarterGrowth(quarterGrowth);
+        }
+        if (yearGrowth != null) {
+            fund.setYearGrowth(yearGrowth);
+        }
+    }
+
+    private static Double navOnOrBefore(NavSeries series, LocalDate date) {
+        int index = series.indexOnOrBefore(date);
+        return index >= 0 ? series.getNav(index) : null;
+    }
+
+    /**
+     * 计算相对区间起点净值的涨幅（%），起点不存在时返回 null
+     */
+    private Double growth(double nav, Object baseNav) {
+        if (!(baseNav instanceof Number) || ((Number) baseNav).doubleValue() == 0.0) {
+            return null;
+        }
+        return (nav / ((Number) baseNav).doubleValue() - 1) * 100;
+    }
+}
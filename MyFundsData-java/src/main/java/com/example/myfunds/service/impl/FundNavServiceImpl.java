@@ -0,0 +1,105 @@
+package com.example.myfunds.service.impl;
+
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.dto.FundNav;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.mapper.FundMapper;
+import com.example.myfunds.provider.FundDataProvider;
+import com.example.myfunds.service.FundDataService;
+import com.example.myfunds.service.FundNavHistoryService;
+import com.example.myfunds.service.FundNavService;
+import com.example.myfunds.utils.SingleFlight;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.BeanUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+@Service
+@Slf4j
+public class FundNavServiceImpl implements FundNavService {
+
+    @Autowired
+    private FundMapper fundMapper;
+
+    @Autowired
+    private FundCache fundCache;
+
+    @Autowired
+    private FundDataProvider fundDataProvider;
+
+    @Autowired
+    private FundDataService fundDataService;
+
+    @Autowired
+    private FundNavHistoryService fundNavHistoryService;
+
+    /**
+     * 净值允许的最大时效，超过后重新拉取
+     */
+    @Value("${myfunds.trade.nav-max-staleness:5m}")
+    private Duration maxStaleness;
+
+    /**
+     * 合并同一基金并发的净值拉取
+     */
+    private final SingleFlight<String, Fund> navSingleFlight = new SingleFlight<>();
+
+    @Override
+    public Fund resolveFund(String fundCode) {
+        Fund fund = fundCache.getByCode(fundCode);
+        if (fund == null) {
+            // 首次交易的基金需要完整刷新，写入基本信息和持仓
+            log.debug("数据库中未找到基金，执行完整刷新，基金代码：{}", fundCode);
+            return fundDataService.refreshFundData(fundCode);
+        }
+        return resolve(fund);
+    }
+
+    @Override
+    public Fund resolveFundById(Long fundId) {
+        Fund fund = fundCache.getById(fundId);
+        if (fund == null) {
+            log.error("基金不存在，基金ID：{}", fundId);
+            throw new RuntimeException("基金不存在");
+        }
+        return resolve(fund);
+    }
+
+    /**
+     * 基金净值在时效内直接使用，否则只拉取净值，更新净值字段并重算区间涨幅
+     */
+    private Fund resolve(Fund fund) {
+        if (fund.getUpdatedTime() != null && isFresh(fund.getUpdatedTime())) {
+            log.debug("基金净值在时效内，基金代码：{}, 更新时间：{}", fund.getFundCode(), fund.getUpdatedTime());
+            return fund;
+        }
+
+        return navSingleFlight.execute(fund.getFundCode(), () -> {
+            log.debug("基金净值已过期，拉取最新净值，基金代码：{}", fund.getFundCode());
+            FundNav nav = fundDataProvider.fetchLatestNav(fund.getFundCode()).join();
+
+            // 缓存中的对象为共享只读对象，复制后再修改
+            Fund updated = new Fund();
+            BeanUtils.copyProperties(fund, updated);
+            updated.setLatestNav(nav.getLatestNav());
+            updated.setDayGrowth(nav.getDayGrowth());
+            updated.setNavDate(nav.getNavDate());
+            // 周、月、季、年涨幅随新净值重算，与完整刷新一致
+            fundNavHistoryService.applyPeriodGrowths(updated, nav.getNavDate());
+            fundMapper.updateLatestNav(updated);
+            fundNavHistoryService.appendNav(fund.getId(), nav.getNavDate(), nav.getLatestNav(), nav.getDayGrowth());
+            updated.setUpdatedTime(LocalDateTime.now());
+            fundCache.replaceAfterCommit(updated, false);
+            log.debug("基金净值更新完成，基金代码：{}, 最新净值：{}", fund.getFundCode(), nav.getLatestNav());
+            return updated;
+        });
+    }
+
+    private boolean isFresh(LocalDateTime time) {
+        return Duration.between(time, LocalDateTime.now()).compareTo(maxStaleness) <= 0;
+    }
+}
@@ -1,22 +1,52 @@
 package com.example.myfunds.service.impl;
 
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.calendar.TradingCalendar;
+import com.example.myfunds.dto.FixedInvestmentRunSummary;
+import com.example.myfunds.dto.OrderSettlementSummary;
+import com.example.myfunds.dto.TransactionPage;
 import com.example.myfunds.entity.*;
+import com.example.myfunds.invest.FixedInvestmentBatchExecutor;
+import com.example.myfunds.invest.FixedInvestmentTimer;
+import com.example.myfunds.invest.InvestmentFrequency;
 import com.example.myfunds.mapper.*;
-import com.example.myfunds.service.FundDataService;
+import com.example.myfunds.order.FundOrderSettlementWorker;
+import com.example.myfunds.order.TradeFeeCalculator;
+import com.example.myfunds.service.FundNavService;
 import com.example.myfunds.service.FundTradeService;
+import com.example.myfunds.service.PortfolioService;
+import com.example.myfunds.utils.StripedLock;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import javax.annotation.PostConstruct;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.locks.Lock;
 
 @Service
 @Slf4j
 public class FundTradeServiceImpl implements FundTradeService {
 
+    /**
+     * 交易记录每页默认数量
+     */
+    private static final int DEFAULT_TRANSACTION_PAGE_SIZE = 50;
+
+    /**
+     * 交易记录每页最大数量
+     */
+    private static final int MAX_TRANSACTION_PAGE_SIZE = 200;
+
     @Autowired
     private FundMapper fundMapper;
 
@@ -30,10 +60,44 @@ public class FundTradeServiceImpl implements FundTradeService {
     private FixedInvestmentMapper fixedInvestmentMapper;
 
     @Autowired
-    private FundDataService fundDataService;
+    private FundNavService fundNavService;
+
+    @Autowired
+    private FundCache fundCache;
+
+    @Autowired
+    private FixedInvestmentBatchExecutor fixedInvestmentBatchExecutor;
+
+    @Autowired
+    private FixedInvestmentTimer fixedInvestmentTimer;
+
+    @Autowired
+    private PortfolioService portfolioService;
 
-    // 交易费率，实际项目中可配置
-    private static final double TRADE_FEE_RATE = 0.0015;
+    @Autowired
+    private FundOrderSettlementWorker fundOrderSettlementWorker;
+
+    @Autowired
+    private TradingCalendar tradingCalendar;
+
+    @Autowired
+    private TradeFeeCalculator tradeFeeCalculator;
+
+    /**
+     * 持仓分段锁数量
+     */
+    @Value("${myfunds.trade.holding-lock-stripes:256}")
+    private int holdingLockStripes;
+
+    /**
+     * 按 (用户, 基金) 分段的持仓锁，同一持仓的“检查 - 写入”在本实例内串行执行，跨实例由持仓版本号与结算时校验保证
+     */
+    private StripedLock holdingLocks;
+
+    @PostConstruct
+    public void init() {
+        holdingLocks = new StripedLock(holdingLockStripes);
+    }
 
     @Override
     @Transactional
@@ -42,9 +106,12 @@ public class FundTradeServiceImpl implements FundTradeService {
                 userId, fundCode, shares, costPrice);
         
         try {
-            // 1. 确保基金数据存在
-            log.debug("步骤1：确保基金数据存在，基金代码：{}", fundCode);
-            Fund fund = fundDataService.refreshFundData(fundCode);
+            // 检查与写入在本实例内按持仓串行执行，在事务的首次读取之前加锁
+            lockHoldingUntilCompletion(userId, fundCode);
+
+            // 1. 获取基金最新净值（时效内直接使用，无需完整刷新）
+            log.debug("步骤1：获取基金最新净值，基金代码：{}", fundCode);
+            Fund fund = fundNavService.resolveFund(fundCode);
             
             // 2. 检查是否已存在持仓
             log.debug("步骤2：检查是否已存在持仓，用户ID：{}, 基金ID：{}", userId, fund.getId());
@@ -67,6 +134,21 @@ public class FundTradeServiceImpl implements FundTradeService {
             userFund.setProfitLossRatio((userFund.getProfitLoss() / userFund.getTotalCost()) * 100);
             
             userFundMapper.insert(userFund);
+            
+            // 4. 记录手动录入交易，持仓投影回放时按成本价计入份额与成本
+            log.debug("步骤4：记录手动录入交易，用户ID：{}, 基金ID：{}", userId, fund.getId());
+            FundTransaction transaction = new FundTransaction();
+            transaction.setUserId(userId);
+            transaction.setFund(fund);
+            transaction.setTransactionType("MANUAL");
+            transaction.setTransactionAmount(shares * costPrice);
+            transaction.setTransactionShares(shares);
+            transaction.setTransactionPrice(costPrice);
+            transaction.setFee(0.0);
+            transaction.setStatus("SUCCESS");
+            transaction.setTransactionTime(LocalDateTime.now());
+            transactionMapper.insert(transaction);
+            portfolioService.refreshUsers(Collections.singletonList(userId));
             log.info("手动添加基金持仓成功，用户ID：{}, 基金代码：{}, 持仓ID：{}", 
                     userId, fundCode, userFund.getId());
             return userFund;
@@ -80,46 +162,30 @@ public class FundTradeServiceImpl implements FundTradeService {
     @Override
     @Transactional
     public FundTransaction buyFund(Long userId, String fundCode, Double amount) {
-        log.info("开始基金加仓操作，用户ID：{}, 基金代码：{}, 加仓金额：{}", 
+        log.info("开始提交买入委托，用户ID：{}, 基金代码：{}, 加仓金额：{}", 
                 userId, fundCode, amount);
         
         try {
-            // 1. 确保基金数据存在
-            log.debug("步骤1：确保基金数据存在，基金代码：{}", fundCode);
-            Fund fund = fundDataService.refreshFundData(fundCode);
-            
-            // 2. 计算交易费用和实际购买份额
-            log.debug("步骤2：计算交易费用和实际购买份额，基金最新净值：{}", fund.getLatestNav());
-            double fee = amount * TRADE_FEE_RATE;
-            double actualAmount = amount - fee;
-            double shares = actualAmount / fund.getLatestNav();
-            log.debug("计算结果：交易费用={}, 实际购买金额={}, 购买份额={}", fee, actualAmount, shares);
-            
-            // 3. 创建交易记录
-            log.debug("步骤3：创建交易记录，用户ID：{}, 基金ID：{}", userId, fund.getId());
-            FundTransaction transaction = new FundTransaction();
-            transaction.setUserId(userId);
-            transaction.setFund(fund);
-            transaction.setTransactionType("BUY");
-            transaction.setTransactionAmount(amount);
-            transaction.setTransactionShares(shares);
-            transaction.setTransactionPrice(fund.getLatestNav());
-            transaction.setFee(fee);
-            transaction.setStatus("SUCCESS");
-            transaction.setTransactionTime(LocalDateTime.now());
+            if (amount == null || amount <= 0) {
+                throw new RuntimeException("加仓金额必须大于0");
+            }
             
-            transactionMapper.insert(transaction);
-            log.debug("交易记录创建成功，交易ID：{}", transaction.getId());
+            // 1. 获取基金信息，委托按确认净值结算，此处无需获取最新净值
+            log.debug("步骤1：获取基金信息，基金代码：{}", fundCode);
+            Fund fund = findFund(fundCode);
             
-            // 4. 更新用户持仓
-            log.debug("步骤4：更新用户持仓，用户ID：{}, 基金ID：{}", userId, fund.getId());
-            updateUserFundHolding(userId, fund, shares, fund.getLatestNav(), amount);
+            // 2. 创建待结算的买入委托，手续费只取决于委托金额，提交时即可确定；份额和价格在结算时确定
+            log.debug("步骤2：创建买入委托，用户ID：{}, 基金ID：{}", userId, fund.getId());
+            FundTransaction order = createPendingOrder(userId, fund, "BUY");
+            order.setTransactionAmount(amount);
+            order.setFee(tradeFeeCalculator.feeFor(amount));
+            transactionMapper.insert(order);
             
-            log.info("基金加仓操作成功，用户ID：{}, 基金代码：{}, 交易ID：{}, 交易金额：{}, 购买份额：{}", 
-                    userId, fundCode, transaction.getId(), transaction.getTransactionAmount(), shares);
-            return transaction;
+            log.info("买入委托提交成功，用户ID：{}, 基金代码：{}, 委托ID：{}, 委托金额：{}", 
+                    userId, fundCode, order.getId(), amount);
+            return order;
         } catch (Exception e) {
-            log.error("基金加仓操作失败，用户ID：{}, 基金代码：{}, 错误原因：{}", 
+            log.error("提交买入委托失败，用户ID：{}, 基金代码：{}, 错误原因：{}", 
                     userId, fundCode, e.getMessage(), e);
             throw e;
         }
@@ -128,61 +194,49 @@ public class FundTradeServiceImpl implements FundTradeService {
     @Override
     @Transactional
     public FundTransaction sellFund(Long userId, String fundCode, Double shares) {
-        log.info("开始基金减仓操作，用户ID：{}, 基金代码：{}, 减仓份额：{}", 
+        log.info("开始提交卖出委托，用户ID：{}, 基金代码：{}, 减仓份额：{}", 
                 userId, fundCode, shares);
         
         try {
-            // 1. 确保基金数据存在
-            log.debug("步骤1：确保基金数据存在，基金代码：{}", fundCode);
-            Fund fund = fundDataService.refreshFundData(fundCode);
+            if (shares == null || shares <= 0) {
+                throw new RuntimeException("减仓份额必须大于0");
+            }
+
+            // 同一持仓的并发卖出在本实例内串行检查，避免都通过检查后超卖；
+            // 必须在事务的首次读取之前加锁，否则可重复读快照早于锁建立，读不到前一个持锁者提交的委托
+            lockHoldingUntilCompletion(userId, fundCode);
+            
+            // 1. 获取基金信息，委托按确认净值结算，此处无需获取最新净值
+            log.debug("步骤1：获取基金信息，基金代码：{}", fundCode);
+            Fund fund = findFund(fundCode);
             
-            // 2. 检查用户持仓
-            log.debug("步骤2：检查用户持仓，用户ID：{}, 基金ID：{}", userId, fund.getId());
+            // 2. 检查可卖份额（持仓份额扣除尚未结算的卖出委托），结算时会再次校验
+            log.debug("步骤2：检查用户可卖份额，用户ID：{}, 基金ID：{}", userId, fund.getId());
             Optional<UserFund> userFundOptional = userFundMapper.selectByUserIdAndFundId(userId, fund.getId());
             if (!userFundOptional.isPresent()) {
                 log.error("用户未持有该基金，用户ID：{}, 基金代码：{}", userId, fundCode);
                 throw new RuntimeException("用户未持有该基金");
             }
             
-            UserFund userFund = userFundOptional.get();
-            if (userFund.getTotalShares() < shares) {
-                log.error("持仓份额不足，用户ID：{}, 基金代码：{}, 持仓份额：{}, 请求减仓份额：{}", 
-                        userId, fundCode, userFund.getTotalShares(), shares);
+            double pendingShares = transactionMapper.sumPendingSellShares(userId, fund.getId());
+            double availableShares = userFundOptional.get().getTotalShares() - pendingShares;
+            if (availableShares < shares) {
+                log.error("可卖份额不足，用户ID：{}, 基金代码：{}, 可卖份额：{}, 请求减仓份额：{}", 
+                        userId, fundCode, availableShares, shares);
                 throw new RuntimeException("持仓份额不足");
             }
             
-            // 3. 计算交易费用和实际到账金额
-            log.debug("步骤3：计算交易费用和实际到账金额，基金最新净值：{}", fund.getLatestNav());
-            double amount = shares * fund.getLatestNav();
-            double fee = amount * TRADE_FEE_RATE;
-            double actualAmount = amount - fee;
-            log.debug("计算结果：交易金额={}, 交易费用={}, 实际到账金额={}", amount, fee, actualAmount);
-            
-            // 4. 创建交易记录
-            log.debug("步骤4：创建交易记录，用户ID：{}, 基金ID：{}", userId, fund.getId());
-            FundTransaction transaction = new FundTransaction();
-            transaction.setUserId(userId);
-            transaction.setFund(fund);
-            transaction.setTransactionType("SELL");
-            transaction.setTransactionAmount(amount);
-            transaction.setTransactionShares(shares);
-            transaction.setTransactionPrice(fund.getLatestNav());
-            transaction.setFee(fee);
-            transaction.setStatus("SUCCESS");
-            transaction.setTransactionTime(LocalDateTime.now());
-            
-            transactionMapper.insert(transaction);
-            log.debug("交易记录创建成功，交易ID：{}", transaction.getId());
-            
-            // 5. 更新用户持仓
-            log.debug("步骤5：更新用户持仓，用户ID：{}, 基金ID：{}", userId, fund.getId());
-            updateUserFundHolding(userId, fund, -shares, fund.getLatestNav(), -amount);
+            // 3. 创建待结算的卖出委托，金额、价格和手续费在结算时确定
+            log.debug("步骤3：创建卖出委托，用户ID：{}, 基金ID：{}", userId, fund.getId());
+            FundTransaction order = createPendingOrder(userId, fund, "SELL");
+            order.setTransactionShares(shares);
+            transactionMapper.insert(order);
             
-            log.info("基金减仓操作成功，用户ID：{}, 基金代码：{}, 交易ID：{}, 交易金额：{}, 减仓份额：{}", 
-                    userId, fundCode, transaction.getId(), transaction.getTransactionAmount(), shares);
-            return transaction;
+            log.info("卖出委托提交成功，用户ID：{}, 基金代码：{}, 委托ID：{}, 委托份额：{}", 
+                    userId, fundCode, order.getId(), shares);
+            return order;
         } catch (Exception e) {
-            log.error("基金减仓操作失败，用户ID：{}, 基金代码：{}, 错误原因：{}", 
+            log.error("提交卖出委托失败，用户ID：{}, 基金代码：{}, 错误原因：{}", 
                     userId, fundCode, e.getMessage(), e);
             throw e;
         }
@@ -195,9 +249,9 @@ public class FundTradeServiceImpl implements FundTradeService {
                 userId, fundCode, amount, frequency);
         
         try {
-            // 1. 确保基金数据存在
-            log.debug("步骤1：确保基金数据存在，基金代码：{}", fundCode);
-            Fund fund = fundDataService.refreshFundData(fundCode);
+            // 1. 获取基金最新净值（时效内直接使用，无需完整刷新）
+            log.debug("步骤1：获取基金最新净值，基金代码：{}", fundCode);
+            Fund fund = fundNavService.resolveFund(fundCode);
             
             // 2. 创建定投计划
             log.debug("步骤2：创建定投计划，用户ID：{}, 基金ID：{}", userId, fund.getId());
@@ -207,10 +261,11 @@ public class FundTradeServiceImpl implements FundTradeService {
             plan.setAmount(amount);
             plan.setFrequency(frequency);
             plan.setStartDate(LocalDateTime.now());
-            plan.setNextExecutionDate(calculateNextExecutionDate(LocalDateTime.now(), frequency));
+            plan.setNextExecutionDate(InvestmentFrequency.next(LocalDateTime.now(), frequency));
             plan.setStatus("ACTIVE");
             
             fixedInvestmentMapper.insert(plan);
+            fixedInvestmentTimer.scheduleAfterCommit(plan);
             log.info("设置定投计划成功，用户ID：{}, 基金代码：{}, 定投计划ID：{}, 定投频率：{}", 
                     userId, fundCode, plan.getId(), frequency);
             return plan;
@@ -224,7 +279,9 @@ public class FundTradeServiceImpl implements FundTradeService {
     @Override
     @Transactional
     public FixedInvestment pauseFixedInvestment(Long id) {
-        return updateFixedInvestmentStatus(id, "PAUSED");
+        FixedInvestment plan = updateFixedInvestmentStatus(id, "PAUSED");
+        fixedInvestmentTimer.cancelAfterCommit(id);
+        return plan;
     }
 
     @Override
@@ -232,15 +289,18 @@ public class FundTradeServiceImpl implements FundTradeService {
     public FixedInvestment resumeFixedInvestment(Long id) {
         FixedInvestment plan = updateFixedInvestmentStatus(id, "ACTIVE");
         // 重新计算下次执行时间
-        plan.setNextExecutionDate(calculateNextExecutionDate(LocalDateTime.now(), plan.getFrequency()));
+        plan.setNextExecutionDate(InvestmentFrequency.next(LocalDateTime.now(), plan.getFrequency()));
         fixedInvestmentMapper.update(plan);
+        fixedInvestmentTimer.scheduleAfterCommit(plan);
         return plan;
     }
 
     @Override
     @Transactional
     public FixedInvestment stopFixedInvestment(Long id) {
-        return updateFixedInvestmentStatus(id, "STOPPED");
+        FixedInvestment plan = updateFixedInvestmentStatus(id, "STOPPED");
+        fixedInvestmentTimer.cancelAfterCommit(id);
+        return plan;
     }
 
     @Override
@@ -258,13 +318,63 @@ public class FundTradeServiceImpl implements FundTradeService {
     }
 
     @Override
-    public List<FundTransaction> getUserTransactions(Long userId) {
-        log.info("开始获取用户交易记录，用户ID：{}", userId);
+    public TransactionPage getUserTransactions(Long userId, String fundCode, String transactionType,
+                                               LocalDate from, LocalDate to, String cursor, Integer limit) {
+        log.info("开始获取用户交易记录，用户ID：{}, 基金代码：{}, 交易类型：{}, 日期区间：{} ~ {}, 游标：{}", 
+                userId, fundCode, transactionType, from, to, cursor);
         try {
-            List<FundTransaction> transactions = transactionMapper.selectByUserId(userId);
-            log.info("获取用户交易记录成功，用户ID：{}, 交易记录数量：{}", userId, transactions.size());
+            int pageSize = limit == null ? DEFAULT_TRANSACTION_PAGE_SIZE 
+                    : Math.max(1, Math.min(limit, MAX_TRANSACTION_PAGE_SIZE));
+            // 查询只读取已入库的基金，不向数据源拉取或新建基金；基金不存在时不可能有交易记录
+            Long fundId = null;
+            if (fundCode != null && !fundCode.isEmpty()) {
+                Fund fund = fundCache.getByCode(fundCode);
+                if (fund == null) {
+                    log.info("基金不存在，返回空交易记录，用户ID：{}, 基金代码：{}", userId, fundCode);
+                    return new TransactionPage();
+                }
+                fundId = fund.getId();
+            }
+            String type = transactionType == null || transactionType.isEmpty() ? null : transactionType;
+            
+            // 游标为上一页最后一条的 (交易时间, ID)，从索引中该位置之后直接读取，与已翻过的页数无关
+            LocalDateTime cursorTime = null;
+            Long cursorId = null;
+            if (cursor != null && !cursor.isEmpty()) {
+                try {
+                    int separator = cursor.lastIndexOf('_');
+                    cursorTime = LocalDateTime.parse(cursor.substring(0, separator));
+                    cursorId = Long.parseLong(cursor.substring(separator + 1));
+                } catch (RuntimeException e) {
+                    throw new RuntimeException("分页游标无效：" + cursor);
+                }
+            }
+            
+            // 多读一条判断是否还有下一页
+            List<FundTransaction> transactions = transactionMapper.selectPageByUserId(userId, fundId, type,
+                    from != null ? from.atStartOfDay() : null, 
+                    to != null ? to.plusDays(1).atStartOfDay() : null, 
+                    cursorTime, cursorId, pageSize + 1);
+            TransactionPage page = new TransactionPage();
+            if (transactions.size() > pageSize) {
+                transactions = transactions.subList(0, pageSize);
+                FundTransaction last = transactions.get(pageSize - 1);
+                page.setHasMore(true);
+                page.setNextCursor(last.getTransactionTime() + "_" + last.getId());
+            }
+            
+            // 交易记录只关联基金ID，从缓存补全基金信息供展示
+            for (FundTransaction transaction : transactions) {
+                Fund fund = fundCache.getById(transaction.getFund().getId());
+                if (fund != null) {
+                    transaction.setFund(fund);
+                }
+            }
+            page.setItems(transactions);
+            log.info("获取用户交易记录成功，用户ID：{}, 本页数量：{}, 是否还有下一页：{}", 
+                    userId, transactions.size(), page.isHasMore());
             log.debug("交易记录详情：{}", transactions);
-            return transactions;
+            return page;
         } catch (Exception e) {
             log.error("获取用户交易记录失败，用户ID：{}, 错误原因：{}", userId, e.getMessage(), e);
             throw e;
@@ -286,101 +396,65 @@ public class FundTradeServiceImpl implements FundTradeService {
     }
 
     @Override
-    @Transactional
-    public void executeFixedInvestments() {
+    public FixedInvestmentRunSummary executeFixedInvestments() {
         log.info("开始执行定投计划");
-        
         try {
-            // 获取所有需要执行的定投计划
-            log.debug("步骤1：获取所有需要执行的定投计划");
-            List<FixedInvestment> plans = fixedInvestmentMapper.selectByStatusAndNextExecutionDateBefore(
-                    "ACTIVE", LocalDateTime.now());
-            log.info("共获取到{}个需要执行的定投计划", plans.size());
-            
-            for (FixedInvestment plan : plans) {
-                log.info("开始执行定投计划，计划ID：{}, 用户ID：{}, 基金代码：{}, 定投金额：{}", 
-                        plan.getId(), plan.getUserId(), plan.getFund().getFundCode(), plan.getAmount());
-                
-                try {
-                    // 执行定投（调用加仓方法）
-                    log.debug("执行定投操作，计划ID：{}", plan.getId());
-                    buyFund(plan.getUserId(), plan.getFund().getFundCode(), plan.getAmount());
-                    
-                    // 更新下次执行时间
-                    log.debug("更新下次执行时间，计划ID：{}", plan.getId());
-                    plan.setNextExecutionDate(calculateNextExecutionDate(plan.getNextExecutionDate(), plan.getFrequency()));
-                    fixedInvestmentMapper.update(plan);
-                    
-                    log.info("定投计划执行成功：ID{}, 下次执行时间：{}", plan.getId(), plan.getNextExecutionDate());
-                } catch (Exception e) {
-                    log.error("定投计划执行失败：ID{}，用户ID：{}, 基金代码：{}, 错误原因：{}", 
-                            plan.getId(), plan.getUserId(), plan.getFund().getFundCode(), e.getMessage(), e);
-                }
-            }
-            
-            log.info("所有定投计划执行完成");
+            // 按基金分组批量执行，每批独立提交，单批失败不影响其他批次
+            return fixedInvestmentBatchExecutor.executeDuePlans(LocalDateTime.now());
         } catch (Exception e) {
             log.error("执行定投计划过程中发生全局错误，错误原因：{}", e.getMessage(), e);
             throw e;
         }
     }
 
+    @Override
+    public OrderSettlementSummary settlePendingOrders() {
+        // 截止到最近一个已收盘交易日的收盘时间，盘中或收盘后提交的委托不能按该日净值结算
+        LocalDateTime cutoffTime = tradingCalendar.sessionClose(tradingCalendar.lastClosedTradingDay(LocalDateTime.now()));
+        log.info("开始手动结算待结算委托，截止时间：{}", cutoffTime);
+        try {
+            return fundOrderSettlementWorker.settle(cutoffTime);
+        } catch (Exception e) {
+            log.error("手动结算委托失败，错误原因：{}", e.getMessage(), e);
+            throw e;
+        }
+    }
+
     /**
-     * 更新用户基金持仓
+     * 获取 (用户, 基金代码) 对应的分段锁，并在当前事务结束（提交或回滚）后释放
+     * 以基金代码为键，无需先读取基金即可加锁
      */
-    private void updateUserFundHolding(Long userId, Fund fund, Double sharesChange, Double price, Double amountChange) {
-        log.debug("开始更新用户基金持仓，用户ID：{}, 基金代码：{}, 份额变化：{}, 交易价格：{}", 
-                userId, fund.getFundCode(), sharesChange, price);
-        
-        Optional<UserFund> userFundOptional = userFundMapper.selectByUserIdAndFundId(userId, fund.getId());
-        
-        if (userFundOptional.isPresent()) {
-            UserFund userFund = userFundOptional.get();
-            double oldShares = userFund.getTotalShares();
-            double newShares = oldShares + sharesChange;
-            
-            if (newShares <= 0) {
-                // 全部卖出，删除持仓记录
-                log.debug("全部卖出，删除持仓记录，持仓ID：{}", userFund.getId());
-                userFundMapper.deleteById(userFund.getId());
-                log.debug("持仓记录删除成功，持仓ID：{}", userFund.getId());
-            } else {
-                // 更新持仓记录
-                log.debug("更新持仓记录，持仓ID：{}, 旧份额：{}, 新份额：{}", 
-                        userFund.getId(), oldShares, newShares);
-                double oldTotalCost = userFund.getTotalCost();
-                double newTotalCost = oldTotalCost + (sharesChange * price);
-                
-                userFund.setTotalShares(newShares);
-                userFund.setAverageCost(newTotalCost / newShares);
-                userFund.setTotalCost(newTotalCost);
-                userFund.setCurrentValue(newShares * fund.getLatestNav());
-                userFund.setProfitLoss(userFund.getCurrentValue() - userFund.getTotalCost());
-                userFund.setProfitLossRatio((userFund.getProfitLoss() / userFund.getTotalCost()) * 100);
-                
-                userFundMapper.update(userFund);
-                log.debug("持仓记录更新成功，持仓ID：{}, 最新市值：{}", 
-                        userFund.getId(), userFund.getCurrentValue());
-            }
+    private void lockHoldingUntilCompletion(Long userId, String fundCode) {
+        Lock lock = holdingLocks.get(Arrays.asList(userId, fundCode));
+        lock.lock();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCompletion(int status) {
+                    lock.unlock();
+                }
+            });
         } else {
-            // 首次购买，创建持仓记录
-            log.debug("首次购买，创建持仓记录，用户ID：{}, 基金代码：{}", userId, fund.getFundCode());
-            UserFund userFund = new UserFund();
-            userFund.setUserId(userId);
-            userFund.setFund(fund);
-            userFund.setTotalShares(sharesChange);
-            userFund.setAverageCost(price);
-            userFund.setTotalCost(sharesChange * price);
-            userFund.setCurrentValue(sharesChange * fund.getLatestNav());
-            userFund.setProfitLoss(userFund.getCurrentValue() - userFund.getTotalCost());
-            userFund.setProfitLossRatio((userFund.getProfitLoss() / userFund.getTotalCost()) * 100);
-            
-            userFundMapper.insert(userFund);
-            log.debug("持仓记录创建成功，持仓ID：{}, 初始市值：{}", 
-                    userFund.getId(), userFund.getCurrentValue());
+            lock.unlock();
         }
-        
-        log.debug("用户基金持仓更新完成，用户ID：{}, 基金代码：{}", userId, fund.getFundCode());
+    }
+
+    /**
+     * 按基金代码获取基金，本地不存在时执行完整刷新
+     */
+    private Fund findFund(String fundCode) {
+        Fund fund = fundCache.getByCode(fundCode);
+        return fund != null ? fund : fundNavService.resolveFund(fundCode);
+    }
+
+    private FundTransaction createPendingOrder(Long userId, Fund fund, String transactionType) {
+        FundTransaction order = new FundTransaction();
+        order.setUserId(userId);
+        order.setFund(fund);
+        order.setTransactionType(transactionType);
+        order.setStatus("PENDING");
+        order.setTransactionTime(LocalDateTime.now());
+        return order;
     }
 
     /**
@@ -397,20 +471,4 @@ public class FundTradeServiceImpl implements FundTradeService {
         log.info("定投计划{}状态更新为{}", id, status);
         return plan;
     }
-
-    /**
-     * 计算下次执行时间
-     */
-    private LocalDateTime calculateNextExecutionDate(LocalDateTime current, String frequency) {
-        switch (frequency) {
-            case "DAILY":
-                return current.plusDays(1);
-            case "WEEKLY":
-                return current.plusWeeks(1);
-            case "MONTHLY":
-                return current.plusMonths(1);
-            default:
-                return current.plusDays(1);
-        }
-    }
 }
\ No newline at end of file
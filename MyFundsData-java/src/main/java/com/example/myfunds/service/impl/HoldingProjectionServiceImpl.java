@@ -0,0 +1,415 @@
+package com.example.myfunds.service.impl;
+
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.dto.HoldingAuditResult;
+import com.example.myfunds.dto.HoldingRebuildSummary;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundTransaction;
+import com.example.myfunds.entity.UserFund;
+import com.example.myfunds.entity.UserHoldingSnapshot;
+import com.example.myfunds.mapper.FundTransactionMapper;
+import com.example.myfunds.mapper.UserFundMapper;
+import com.example.myfunds.mapper.UserHoldingSnapshotMapper;
+import com.example.myfunds.mapper.UserMapper;
+import com.example.myfunds.service.HoldingProjectionService;
+import com.example.myfunds.service.PortfolioService;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 持仓投影服务实现类
+ * 回放规则与委托结算、定投执行、手动录入写入持仓的方式一致：
+ * 买入、定投、手动录入按确认份额和价格累加份额与成本，卖出按确认份额和价格扣减，份额归零后重新累计；
+ * 快照只推进到第一笔待结算委托或最近仍可能有未提交交易的时间之前，保证快照之后不会再出现更小ID的已确认交易
+ */
+@Service
+@Slf4j
+public class HoldingProjectionServiceImpl implements HoldingProjectionService {
+
+    /**
+     * 投影与持仓表比较时允许的浮点误差
+     */
+    private static final double TOLERANCE = 1e-6;
+
+    @Autowired
+    private FundTransactionMapper transactionMapper;
+
+    @Autowired
+    private UserFundMapper userFundMapper;
+
+    @Autowired
+    private UserHoldingSnapshotMapper snapshotMapper;
+
+    @Autowired
+    private UserMapper userMapper;
+
+    @Autowired
+    private FundCache fundCache;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    @Qualifier("holdingProjectionExecutor")
+    private Executor holdingProjectionExecutor;
+
+    /**
+     * 全量核对时并行的用户分区数量
+     */
+    @Value("${myfunds.holding.rebuild-partitions:4}")
+    private int partitions;
+
+    /**
+     * 全量核对时分页读取用户ID的每页数量
+     */
+    @Value("${myfunds.holding.page-size:1000}")
+    private int pageSize;
+
+    /**
+     * 创建时间晚于该时长以内的交易不计入快照，等待可能仍未提交的更小ID交易落库
+     */
+    @Value("${myfunds.holding.snapshot-lag:5m}")
+    private Duration snapshotLag;
+
+    private TransactionTemplate transactionTemplate;
+
+    /**
+     * 核对时读取持仓表与回放交易记录的只读事务，两者在同一个一致性快照内读取
+     */
+    private TransactionTemplate snapshotReadTemplate;
+
+    @PostConstruct
+    public void init() {
+        transactionTemplate = new TransactionTemplate(transactionManager);
+        snapshotReadTemplate = new TransactionTemplate(transactionManager);
+        snapshotReadTemplate.setIsolationLevel(TransactionDefinition.ISOLATION_REPEATABLE_READ);
+        snapshotReadTemplate.setReadOnly(true);
+    }
+
+    @Override
+    public List<UserFund> projectHoldings(Long userId) {
+        Projection projection = replay(userId, LocalDateTime.now());
+        List<UserFund> holdings = new ArrayList<>();
+        for (Map.Entry<Long, double[]> entry : projection.current.entrySet()) {
+            double[] position = entry.getValue();
+            if (position[0] > 0) {
+                holdings.add(toUserFund(userId, entry.getKey(), position));
+            }
+        }
+        return holdings;
+    }
+
+    @Override
+    public HoldingAuditResult auditUser(Long userId, boolean repair) {
+        return audit(userId, repair, repair);
+    }
+
+    /**
+     * 核对单个用户，按需修正持仓表、刷新快照；两者都不需要时不写入任何数据
+     */
+    private HoldingAuditResult audit(Long userId, boolean repair, boolean saveSnapshot) {
+        // 持仓表（含版本号）与交易记录在同一个可重复读快照内读取：回放结果与读到的持仓对应同一时刻，
+        // 之后提交的结算或定投会递增版本号，修正时按版本号更新失败，不会覆盖并发写入
+        Map<Long, UserFund> actual = new HashMap<>();
+        Projection projection = snapshotReadTemplate.execute(status -> {
+            for (UserFund holding : userFundMapper.selectByUserId(userId)) {
+                actual.put(holding.getFund().getId(), holding);
+            }
+            return replay(userId, LocalDateTime.now());
+        });
+        HoldingAuditResult result = new HoldingAuditResult();
+        result.setUserId(userId);
+        result.setSnapshotTransactionId(projection.snapshotTransactionId);
+        result.setReplayedTransactions(projection.replayedTransactions);
+
+        Set<Long> fundIds = new LinkedHashSet<>(actual.keySet());
+        for (Map.Entry<Long, double[]> entry : projection.current.entrySet()) {
+            if (entry.getValue()[0] > 0) {
+                fundIds.add(entry.getKey());
+            }
+        }
+        result.setCheckedHoldings(fundIds.size());
+
+        List<UserFund> inserts = new ArrayList<>();
+        List<UserFund> updates = new ArrayList<>();
+        List<UserFund> deletes = new ArrayList<>();
+        for (Long fundId : fundIds) {
+            double[] position = projection.current.get(fundId);
+            boolean projected = position != null && position[0] > 0;
+            UserFund holding = actual.get(fundId);
+            if (holding == null) {
+                inserts.add(toUserFund(userId, fundId, position));
+            } else if (!projected) {
+                deletes.add(holding);
+            } else if (Math.abs(holding.getTotalShares() - position[0]) > TOLERANCE
+                    || Math.abs(holding.getTotalCost() - position[1]) > TOLERANCE) {
+                UserFund repaired = toUserFund(userId, fundId, position);
+                repaired.setId(holding.getId());
+                repaired.setVersion(holding.getVersion());
+                updates.add(repaired);
+            } else {
+                continue;
+            }
+            result.getMismatchedFundIds().add(fundId);
+        }
+        if (!result.getMismatchedFundIds().isEmpty()) {
+            log.warn("持仓与交易记录投影不一致，用户ID：{}, 基金ID：{}", userId, result.getMismatchedFundIds());
+        }
+
+        if (repair && !result.getMismatchedFundIds().isEmpty()) {
+            try {
+                result.setRepairedHoldings(transactionTemplate.execute(status -> repair(userId, inserts, updates, deletes)));
+                log.info("持仓已按交易记录投影修正，用户ID：{}, 修正数量：{}", userId, result.getRepairedHoldings());
+            } catch (DuplicateKeyException e) {
+                log.warn("核对期间持仓已被并发创建，本次不修正，留待下次核对，用户ID：{}", userId);
+            }
+        }
+
+        result.setNewSnapshotTransactionId(projection.snapshotTransactionId);
+        if (saveSnapshot && projection.safeTransactionId > projection.snapshotTransactionId) {
+            saveSnapshot(userId, projection);
+            result.setNewSnapshotTransactionId(projection.safeTransactionId);
+        }
+        return result;
+    }
+
+    @Override
+    public HoldingRebuildSummary rebuildAll(boolean repair, boolean saveSnapshots) {
+        LocalDateTime startTime = LocalDateTime.now();
+        HoldingRebuildSummary summary = new HoldingRebuildSummary();
+        summary.setRepair(repair);
+        summary.setPartitions(partitions);
+        summary.setStartTime(startTime);
+
+        AtomicInteger userCount = new AtomicInteger();
+        AtomicInteger failedUsers = new AtomicInteger();
+        AtomicInteger mismatchedUsers = new AtomicInteger();
+        AtomicInteger mismatchedHoldings = new AtomicInteger();
+        AtomicInteger repairedHoldings = new AtomicInteger();
+        AtomicLong replayedTransactions = new AtomicLong();
+
+        // 按用户ID取模分区，同一用户始终由同一分区处理，每页内各分区并行核对
+        Long afterId = null;
+        while (true) {
+            List<Long> userIds = userMapper.selectIdsPage(afterId, pageSize);
+            if (userIds.isEmpty()) {
+                break;
+            }
+            Map<Integer, List<Long>> partitioned = new LinkedHashMap<>();
+            for (Long userId : userIds) {
+                partitioned.computeIfAbsent((int) (userId % partitions), k -> new ArrayList<>()).add(userId);
+            }
+
+            List<CompletableFuture<Void>> futures = new ArrayList<>(partitioned.size());
+            for (List<Long> partition : partitioned.values()) {
+                futures.add(CompletableFuture.runAsync(() -> {
+                    for (Long userId : partition) {
+                        try {
+                            HoldingAuditResult result = audit(userId, repair, saveSnapshots);
+                            replayedTransactions.addAndGet(result.getReplayedTransactions());
+                            repairedHoldings.addAndGet(result.getRepairedHoldings());
+                            if (!result.getMismatchedFundIds().isEmpty()) {
+                                mismatchedUsers.incrementAndGet();
+                                mismatchedHoldings.addAndGet(result.getMismatchedFundIds().size());
+                            }
+                        } catch (Exception e) {
+                            failedUsers.incrementAndGet();
+                            log.error("用户持仓核对失败，用户ID：{}, 错误原因：{}", userId, e.getMessage(), e);
+                        }
+                        userCount.incrementAndGet();
+                    }
+                }, holdingProjectionExecutor));
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+
+            afterId = userIds.get(userIds.size() - 1);
+            if (userIds.size() < pageSize) {
+                break;
+            }
+        }
+
+        LocalDateTime endTime = LocalDateTime.now();
+        summary.setUserCount(userCount.get());
+        summary.setFailedUsers(failedUsers.get());
+        summary.setMismatchedUsers(mismatchedUsers.get());
+        summary.setMismatchedHoldings(mismatchedHoldings.get());
+        summary.setRepairedHoldings(repairedHoldings.get());
+        summary.setReplayedTransactions(replayedTransactions.get());
+        summary.setEndTime(endTime);
+        summary.setElapsedMillis(Duration.between(startTime, endTime).toMillis());
+        log.info("全量持仓核对完成，用户数量：{}, 失败：{}, 不一致用户：{}, 不一致持仓：{}, 已修正：{}, 回放交易：{}, 耗时：{}ms",
+                summary.getUserCount(), summary.getFailedUsers(), summary.getMismatchedUsers(),
+                summary.getMismatchedHoldings(), summary.getRepairedHoldings(),
+                summary.getReplayedTransactions(), summary.getElapsedMillis());
+        return summary;
+    }
+
+    /**
+     * 从用户最近的快照出发，按交易ID顺序回放其后的已确认交易
+     */
+    private Projection replay(Long userId, LocalDateTime now) {
+        Projection projection = new Projection();
+        for (UserHoldingSnapshot snapshot : snapshotMapper.selectByUserId(userId)) {
+            projection.current.put(snapshot.getFundId(),
+                    new double[]{snapshot.getTotalShares(), snapshot.getTotalCost()});
+            projection.snapshotTransactionId = snapshot.getLastTransactionId();
+        }
+        projection.safeTransactionId = projection.snapshotTransactionId;
+
+        LocalDateTime safeBefore = now.minus(snapshotLag);
+        for (FundTransaction transaction : transactionMapper.selectReplayableAfter(userId, projection.snapshotTransactionId)) {
+            boolean settled = "SUCCESS".equals(transaction.getStatus());
+            if (projection.safe == null
+                    && (!settled || !transaction.getCreatedTime().isBefore(safeBefore))) {
+                projection.safe = copy(projection.current);
+            }
+            if (!settled) {
+                continue;
+            }
+            apply(projection.current, transaction);
+            projection.replayedTransactions++;
+            if (projection.safe == null) {
+                projection.safeTransactionId = transaction.getId();
+            }
+        }
+        if (projection.safe == null) {
+            projection.safe = projection.current;
+        }
+        return projection;
+    }
+
+    private void apply(Map<Long, double[]> positions, FundTransaction transaction) {
+        double[] position = positions.computeIfAbsent(transaction.getFund().getId(), k -> new double[2]);
+        double shares = transaction.getTransactionShares();
+        double cost = shares * transaction.getTransactionPrice();
+        if ("SELL".equals(transaction.getTransactionType())) {
+            position[0] -= shares;
+            position[1] -= cost;
+        } else {
+            position[0] += shares;
+            position[1] += cost;
+        }
+        // 全部卖出后持仓被删除，之后的买入重新累计成本
+        if (position[0] <= 0) {
+            position[0] = 0;
+            position[1] = 0;
+        }
+    }
+
+    private int repair(Long userId, List<UserFund> inserts, List<UserFund> updates, List<UserFund> deletes) {
+        int repaired = 0;
+        if (!inserts.isEmpty()) {
+            repaired += userFundMapper.insertBatch(inserts);
+        }
+        // 版本号不一致的持仓在核对期间已被修改，跳过修正，留待下次核对
+        if (!updates.isEmpty()) {
+            repaired += userFundMapper.updateBatch(updates);
+        }
+        if (!deletes.isEmpty()) {
+            repaired += userFundMapper.deleteBatch(deletes);
+        }
+        portfolioService.refreshUsers(Collections.singletonList(userId));
+        return repaired;
+    }
+
+    /**
+     * 以投影的安全点替换用户的快照，份额为 0 的持仓也保留，用于记录快照位置
+     */
+    private void saveSnapshot(Long userId, Projection projection) {
+        LocalDateTime snapshotTime = LocalDateTime.now();
+        List<UserHoldingSnapshot> snapshots = new ArrayList<>(projection.safe.size());
+        for (Map.Entry<Long, double[]> entry : projection.safe.entrySet()) {
+            UserHoldingSnapshot snapshot = new UserHoldingSnapshot();
+            snapshot.setUserId(userId);
+            snapshot.setFundId(entry.getKey());
+            snapshot.setTotalShares(entry.getValue()[0]);
+            snapshot.setTotalCost(entry.getValue()[1]);
+            snapshot.setLastTransactionId(projection.safeTransactionId);
+            snapshot.setSnapshotTime(snapshotTime);
+            snapshots.add(snapshot);
+        }
+        transactionTemplate.execute(status -> {
+            snapshotMapper.deleteByUserId(userId);
+            if (!snapshots.isEmpty()) {
+                snapshotMapper.insertBatch(snapshots);
+            }
+            return null;
+        });
+        log.debug("持仓快照已更新，用户ID：{}, 快照交易ID：{}, 持仓数量：{}",
+                userId, projection.safeTransactionId, snapshots.size());
+    }
+
+    /**
+     * 按投影生成持仓，市值与盈亏按基金最新净值计算
+     */
+    private UserFund toUserFund(Long userId, Long fundId, double[] position) {
+        Fund fund = fundCache.getById(fundId);
+        if (fund == null) {
+            throw new RuntimeException("基金不存在，基金ID：" + fundId);
+        }
+        double nav = fund.getLatestNav() != null ? fund.getLatestNav() : 0.0;
+        UserFund holding = new UserFund();
+        holding.setUserId(userId);
+        holding.setFund(fund);
+        holding.setTotalShares(position[0]);
+        holding.setTotalCost(position[1]);
+        holding.setAverageCost(position[1] / position[0]);
+        holding.setCurrentValue(position[0] * nav);
+        holding.setProfitLoss(holding.getCurrentValue() - position[1]);
+        holding.setProfitLossRatio(position[1] > 0 ? (holding.getProfitLoss() / position[1]) * 100 : 0.0);
+        return holding;
+    }
+
+    private static Map<Long, double[]> copy(Map<Long, double[]> positions) {
+        Map<Long, double[]> copy = new HashMap<>(positions.size());
+        for (Map.Entry<Long, double[]> entry : positions.entrySet()) {
+            copy.put(entry.getKey(), entry.getValue().clone());
+        }
+        return copy;
+    }
+
+    /**
+     * 单个用户的回放结果
+     */
+    private static class Projection {
+        /**
+         * 基金ID -> {份额, 成本}，回放全部已确认交易后的当前持仓
+         */
+        private final Map<Long, double[]> current = new HashMap<>();
+
+        /**
+         * 可写入快照的持仓，截止到 safeTransactionId
+         */
+        private Map<Long, double[]> safe;
+
+        private long snapshotTransactionId;
+        private long safeTransactionId;
+        private int replayedTransactions;
+    }
+}
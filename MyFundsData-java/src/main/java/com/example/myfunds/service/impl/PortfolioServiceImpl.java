@@ -0,0 +1,157 @@
+package com.example.myfunds.service.impl;
+
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.UserPortfolio;
+import com.example.myfunds.mapper.UserFundMapper;
+import com.example.myfunds.mapper.UserPortfolioMapper;
+import com.example.myfunds.service.PortfolioService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 用户资产汇总服务实现类
+ * 汇总保存在 USER_PORTFOLIO 表，按用户缓存；写入方在同一事务中重算受影响用户的汇总，提交后只失效这些用户的缓存
+ */
+@Service
+@Slf4j
+public class PortfolioServiceImpl implements PortfolioService {
+
+    @Autowired
+    private UserPortfolioMapper userPortfolioMapper;
+
+    @Autowired
+    private UserFundMapper userFundMapper;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    @Value("${myfunds.cache.portfolio.max-size:10000}")
+    private long maxSize;
+
+    /**
+     * 多实例部署时其他节点写入的汇总在该时长内可见
+     */
+    @Value("${myfunds.cache.portfolio.expire-after-write:1m}")
+    private Duration expireAfterWrite;
+
+    /**
+     * 每条重算语句覆盖的用户或基金数量
+     */
+    @Value("${myfunds.portfolio.refresh-chunk-size:500}")
+    private int chunkSize;
+
+    private Cache<Long, UserPortfolio> portfolios;
+
+    @PostConstruct
+    public void init() {
+        portfolios = Caffeine.newBuilder()
+                .maximumSize(maxSize)
+                .expireAfterWrite(expireAfterWrite)
+                .recordStats()
+                .build();
+        CaffeineCacheMetrics.monitor(meterRegistry, portfolios, "user.portfolio");
+    }
+
+    @Override
+    public UserPortfolio getPortfolio(Long userId) {
+        return portfolios.get(userId, this::loadPortfolio);
+    }
+
+    @Override
+    public void refreshUsers(Collection<Long> userIds) {
+        if (userIds.isEmpty()) {
+            return;
+        }
+        List<Long> ids = new ArrayList<>(userIds);
+        Collections.sort(ids);
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            userPortfolioMapper.refreshByUserIds(ids.subList(from, Math.min(from + chunkSize, ids.size())));
+        }
+        runAfterCommit(() -> portfolios.invalidateAll(ids));
+    }
+
+    @Override
+    public void refreshByFunds(Collection<Long> fundIds) {
+        if (fundIds.isEmpty()) {
+            return;
+        }
+        Set<Long> userIds = selectHolderIds(fundIds);
+        refreshUsers(userIds);
+        log.debug("用户资产汇总重算完成，基金数量：{}, 用户数量：{}", fundIds.size(), userIds.size());
+    }
+
+    @Override
+    public void applyEstimateChanges(List<Fund> funds) {
+        if (funds.isEmpty()) {
+            return;
+        }
+        List<Long> fundIds = new ArrayList<>(funds.size());
+        for (Fund fund : funds) {
+            fundIds.add(fund.getId());
+        }
+        Set<Long> userIds = selectHolderIds(fundIds);
+        if (userIds.isEmpty()) {
+            return;
+        }
+        int adjusted = 0;
+        for (int from = 0; from < funds.size(); from += chunkSize) {
+            adjusted += userPortfolioMapper.addEstimatedDayProfitDeltas(
+                    funds.subList(from, Math.min(from + chunkSize, funds.size())));
+        }
+        runAfterCommit(() -> portfolios.invalidateAll(userIds));
+        log.debug("用户当日预估收益增量调整完成，基金数量：{}, 调整行数：{}", funds.size(), adjusted);
+    }
+
+    /**
+     * 查询持有指定基金的用户
+     */
+    private Set<Long> selectHolderIds(Collection<Long> fundIds) {
+        List<Long> ids = new ArrayList<>(fundIds);
+        Set<Long> userIds = new HashSet<>();
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            userIds.addAll(userFundMapper.selectUserIdsByFundIds(ids.subList(from, Math.min(from + chunkSize, ids.size()))));
+        }
+        return userIds;
+    }
+
+    /**
+     * 读取用户资产汇总，尚未生成时按持仓计算一次
+     */
+    private UserPortfolio loadPortfolio(Long userId) {
+        return userPortfolioMapper.selectByUserId(userId).orElseGet(() -> {
+            userPortfolioMapper.refreshByUserIds(Collections.singletonList(userId));
+            return userPortfolioMapper.selectByUserId(userId)
+                    .orElseThrow(() -> new RuntimeException("用户不存在"));
+        });
+    }
+
+    private void runAfterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.myfunds.utils;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 按键合并并发调用的工具类
+ * 同一个键同时只有一个调用真正执行，其余并发调用等待并共享该次执行的结果或异常；
+ * 执行结束后立即移除，后续调用会重新执行，不做结果缓存
+ * @param <K> 键类型
+ * @param <V> 结果类型
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    /**
+     * 实际执行次数
+     */
+    private final AtomicLong executedCount = new AtomicLong();
+
+    /**
+     * 被合并（共享他人结果）的调用次数
+     */
+    private final AtomicLong coalescedCount = new AtomicLong();
+
+    /**
+     * 执行或加入同键的在途调用
+     * @param key 合并键
+     * @param supplier 实际执行逻辑
+     * @return 执行结果
+     */
+    public V execute(K key, Supplier<V> supplier) {
+        CompletableFuture<V> created = new CompletableFuture<>();
+        CompletableFuture<V> existing = inFlight.putIfAbsent(key, created);
+        if (existing != null) {
+            coalescedCount.incrementAndGet();
+            return await(existing);
+        }
+
+        executedCount.incrementAndGet();
+        try {
+            V result = supplier.get();
+            created.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            created.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, created);
+        }
+    }
+
+    private V await(CompletableFuture<V> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    public long getExecutedCount() {
+        return executedCount.get();
+    }
+
+    public long getCoalescedCount() {
+        return coalescedCount.get();
+    }
+
+    public int getInFlightCount() {
+        return inFlight.size();
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.myfunds.utils;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * 分段锁工具类
+ * 固定数量的锁按键的哈希值分段复用，不同键可能共享同一把锁，内存占用与键的数量无关；
+ * 需要同时持有多个键的锁时按分段下标顺序获取，避免死锁
+ */
+public class StripedLock {
+
+    private final ReentrantLock[] locks;
+
+    private final int mask;
+
+    /**
+     * @param stripes 分段数量，向上取整为 2 的幂
+     */
+    public StripedLock(int stripes) {
+        int size = 1;
+        while (size < stripes) {
+            size <<= 1;
+        }
+        locks = new ReentrantLock[size];
+        for (int i = 0; i < size; i++) {
+            locks[i] = new ReentrantLock();
+        }
+        mask = size - 1;
+    }
+
+    /**
+     * 获取键对应的锁
+     */
+    public Lock get(Object key) {
+        return locks[indexOf(key)];
+    }
+
+    /**
+     * 获取多个键对应的锁，已去重并按获取顺序排列
+     */
+    public List<Lock> getAll(Collection<?> keys) {
+        TreeSet<Integer> indexes = new TreeSet<>();
+        for (Object key : keys) {
+            indexes.add(indexOf(key));
+        }
+        List<Lock> result = new ArrayList<>(indexes.size());
+        for (Integer index : indexes) {
+            result.add(locks[index]);
+        }
+        return result;
+    }
+
+    public int size() {
+        return locks.length;
+    }
+
+    private int indexOf(Object key) {
+        int h = key.hashCode();
+        // 高位参与运算，减少低位相同的键集中到同一分段
+        h ^= (h >>> 16);
+        return h & mask;
+    }
+}
@@ -0,0 +1,74 @@
+package com.example.myfunds.valuation;
+
+import com.example.myfunds.mapper.UserFundMapper;
+import com.example.myfunds.service.PortfolioService;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 持仓市值重估
+ * 基金净值刷新后，按基金分批以一条关联 FUND 表的更新语句重算全部持仓的市值与盈亏，
+ * 持仓查询直接读取已是最新净值的结果，无需逐行在 Java 中计算；持有这些基金的用户资产汇总随之重算
+ */
+@Component
+@Slf4j
+public class HoldingRevaluer {
+
+    @Autowired
+    private UserFundMapper userFundMapper;
+
+    @Autowired
+    private PortfolioService portfolioService;
+
+    @Autowired
+    private MeterRegistry meterRegistry;
+
+    /**
+     * 每条更新语句重估的基金数量
+     */
+    @Value("${myfunds.holding.revalue-chunk-size:50}")
+    private int chunkSize;
+
+    private Timer revalueTimer;
+
+    @PostConstruct
+    public void init() {
+        revalueTimer = Timer.builder("myfunds.holding.revalue")
+                .description("基金净值刷新后持仓市值重估耗时")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 按基金最新净值重估持仓，在调用方事务中执行，无事务时每批独立提交
+     * @param fundIds 净值已更新的基金ID
+     * @return 重估的持仓数量
+     */
+    public int revalue(Collection<Long> fundIds) {
+        if (fundIds.isEmpty()) {
+            return 0;
+        }
+        long startNanos = System.nanoTime();
+        List<Long> ids = new ArrayList<>(fundIds);
+        int revalued = 0;
+        for (int from = 0; from < ids.size(); from += chunkSize) {
+            List<Long> chunk = ids.subList(from, Math.min(from + chunkSize, ids.size()));
+            revalued += userFundMapper.revalueByFundIds(chunk);
+            portfolioService.refreshByFunds(chunk);
+        }
+        long elapsedNanos = System.nanoTime() - startNanos;
+        revalueTimer.record(elapsedNanos, TimeUnit.NANOSECONDS);
+        log.info("持仓市值重估完成，基金数量：{}, 持仓数量：{}, 耗时：{}ms", 
+                ids.size(), revalued, TimeUnit.NANOSECONDS.toMillis(elapsedNanos));
+        return revalued;
+    }
+}
@@ -0,0 +1,117 @@
+package com.example.myfunds.calendar;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.DefaultResourceLoader;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 交易日历测试，使用随应用打包的休市日文件
+ */
+class TradingCalendarTest {
+
+    /**
+     * 国庆休市前最后一个交易日（周三）
+     */
+    private static final LocalDate BEFORE_HOLIDAY = LocalDate.of(2026, 9, 30);
+
+    /**
+     * 国庆休市后第一个交易日（周四）
+     */
+    private static final LocalDate AFTER_HOLIDAY = LocalDate.of(2026, 10, 8);
+
+    private TradingCalendar calendar(String location) throws Exception {
+        TradingCalendar calendar = new TradingCalendar();
+        ReflectionTestUtils.setField(calendar, "resourceLoader", new DefaultResourceLoader());
+        ReflectionTestUtils.setField(calendar, "calendarLocation", location);
+        ReflectionTestUtils.setField(calendar, "morningOpenText", "09:30");
+        ReflectionTestUtils.setField(calendar, "morningCloseText", "11:30");
+        ReflectionTestUtils.setField(calendar, "afternoonOpenText", "13:00");
+        ReflectionTestUtils.setField(calendar, "afternoonCloseText", "15:00");
+        calendar.init();
+        return calendar;
+    }
+
+    private TradingCalendar calendar() throws Exception {
+        return calendar("classpath:trading-calendar.txt");
+    }
+
+    @Test
+    void weekendsAndListedHolidaysAreNotTradingDays() throws Exception {
+        TradingCalendar calendar = calendar();
+
+        assertTrue(calendar.isTradingDay(BEFORE_HOLIDAY));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2026, 10, 1)));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2026, 10, 7)));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2026, 10, 17)));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2026, 10, 18)));
+        assertTrue(calendar.isTradingDay(AFTER_HOLIDAY));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2027, 1, 1)));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2027, 2, 8)));
+    }
+
+    @Test
+    void sessionsExcludeLunchBreakAndClose() throws Exception {
+        TradingCalendar calendar = calendar();
+        LocalDate day = AFTER_HOLIDAY;
+
+        assertFalse(calendar.isInSession(day.atTime(9, 29, 59)));
+        assertTrue(calendar.isInSession(day.atTime(9, 30)));
+        assertTrue(calendar.isInSession(day.atTime(11, 29, 59)));
+        assertFalse(calendar.isInSession(day.atTime(11, 30)));
+        assertFalse(calendar.isInSession(day.atTime(12, 59, 59)));
+        assertTrue(calendar.isInSession(day.atTime(13, 0)));
+        assertTrue(calendar.isInSession(day.atTime(14, 59, 59)));
+        assertFalse(calendar.isInSession(day.atTime(15, 0)));
+        assertFalse(calendar.isInSession(LocalDate.of(2026, 10, 1).atTime(10, 0)));
+    }
+
+    @Test
+    void nextSessionStartSkipsLunchWeekendsAndHolidays() throws Exception {
+        TradingCalendar calendar = calendar();
+
+        LocalDateTime inSession = AFTER_HOLIDAY.atTime(10, 0);
+        assertEquals(inSession, calendar.nextSessionStart(inSession));
+        assertEquals(AFTER_HOLIDAY.atTime(9, 30), calendar.nextSessionStart(AFTER_HOLIDAY.atTime(8, 0)));
+        assertEquals(AFTER_HOLIDAY.atTime(13, 0), calendar.nextSessionStart(AFTER_HOLIDAY.atTime(11, 45)));
+        assertEquals(AFTER_HOLIDAY.atTime(9, 30), calendar.nextSessionStart(BEFORE_HOLIDAY.atTime(15, 30)));
+        assertEquals(AFTER_HOLIDAY, calendar.nextTradingDay(BEFORE_HOLIDAY));
+    }
+
+    @Test
+    void lastClosedTradingDayTurnsOverAtClose() throws Exception {
+        TradingCalendar calendar = calendar();
+
+        assertEquals(BEFORE_HOLIDAY, calendar.lastClosedTradingDay(AFTER_HOLIDAY.atTime(14, 59)));
+        assertEquals(AFTER_HOLIDAY, calendar.lastClosedTradingDay(AFTER_HOLIDAY.atTime(15, 0)));
+        assertEquals(BEFORE_HOLIDAY, calendar.lastClosedTradingDay(LocalDate.of(2026, 10, 3).atTime(12, 0)));
+        assertEquals(AFTER_HOLIDAY.atTime(15, 0), calendar.sessionClose(AFTER_HOLIDAY));
+    }
+
+    @Test
+    void describeClosedExplainsWhyMarketIsClosed() throws Exception {
+        TradingCalendar calendar = calendar();
+
+        assertEquals("周末休市", calendar.describeClosed(LocalDate.of(2026, 10, 17).atTime(10, 0)));
+        assertEquals("节假日休市", calendar.describeClosed(LocalDate.of(2026, 10, 1).atTime(10, 0)));
+        assertEquals("未开盘", calendar.describeClosed(AFTER_HOLIDAY.atTime(9, 0)));
+        assertEquals("午间休市", calendar.describeClosed(AFTER_HOLIDAY.atTime(12, 0)));
+        assertEquals("已收盘", calendar.describeClosed(AFTER_HOLIDAY.atTime(15, 0)));
+        assertNull(calendar.describeClosed(AFTER_HOLIDAY.atTime(10, 0)));
+    }
+
+    @Test
+    void missingCalendarFileFallsBackToWeekendsOnly() throws Exception {
+        TradingCalendar calendar = calendar("classpath:missing-trading-calendar.txt");
+
+        assertTrue(calendar.isTradingDay(LocalDate.of(2026, 10, 1)));
+        assertFalse(calendar.isTradingDay(LocalDate.of(2026, 10, 17)));
+    }
+}
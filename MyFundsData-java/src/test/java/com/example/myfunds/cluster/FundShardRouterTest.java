@@ -0,0 +1,135 @@
+package com.example.myfunds.cluster;
+
+import com.example.myfunds.config.ClusterProperties;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 基金分片路由测试：每只基金只归属一个节点，节点增减时只有新增或下线节点相关的基金迁移
+ */
+class FundShardRouterTest {
+
+    private static final int FUND_COUNT = 2000;
+
+    private final TestMembership membership = new TestMembership();
+
+    private final List<String> fundCodes = new ArrayList<>();
+
+    private FundShardRouter router;
+
+    @BeforeEach
+    void setUp() {
+        router = new FundShardRouter();
+        ReflectionTestUtils.setField(router, "clusterMembership", membership);
+        ReflectionTestUtils.setField(router, "clusterProperties", new ClusterProperties());
+        for (int i = 0; i < FUND_COUNT; i++) {
+            fundCodes.add(String.format("%06d", i));
+        }
+    }
+
+    @Test
+    void singleNodeOwnsEveryFund() {
+        membership.setNodes("node-a", "node-a");
+
+        assertEquals(fundCodes, router.filterLocal(fundCodes));
+        assertTrue(router.isLocal("000001"));
+    }
+
+    @Test
+    void everyFundHasExactlyOneOwner() {
+        List<String> nodes = Arrays.asList("node-a", "node-b", "node-c");
+        int total = 0;
+        for (String node : nodes) {
+            membership.setNodes(node, "node-a", "node-b", "node-c");
+            List<String> local = router.filterLocalQuietly(fundCodes);
+            for (String fundCode : local) {
+                assertEquals(node, router.ownerOf(fundCode));
+                assertTrue(router.isLocal(fundCode));
+            }
+            // 虚拟节点使各节点负责的基金数量大致均衡
+            assertTrue(local.size() > FUND_COUNT / 6, node + " 负责：" + local.size());
+            total += local.size();
+        }
+        assertEquals(FUND_COUNT, total);
+    }
+
+    @Test
+    void ownershipDoesNotDependOnNodeListOrder() {
+        membership.setNodes("node-a", "node-a", "node-b", "node-c");
+        Map<String, String> before = owners();
+        membership.setNodes("node-a", "node-c", "node-a", "node-b");
+
+        assertEquals(before, owners());
+    }
+
+    @Test
+    void joiningNodeOnlyTakesFundsFromExistingNodes() {
+        membership.setNodes("node-a", "node-a", "node-b", "node-c");
+        Map<String, String> before = owners();
+        membership.setNodes("node-a", "node-a", "node-b", "node-c", "node-d");
+        Map<String, String> after = owners();
+
+        int moved = 0;
+        for (String fundCode : fundCodes) {
+            if (!before.get(fundCode).equals(after.get(fundCode))) {
+                assertEquals("node-d", after.get(fundCode), "基金只能迁移到新加入的节点：" + fundCode);
+                moved++;
+            }
+        }
+        assertTrue(moved > 0 && moved < FUND_COUNT / 2, "迁移数量：" + moved);
+    }
+
+    @Test
+    void leavingNodeOnlyReleasesItsOwnFunds() {
+        membership.setNodes("node-a", "node-a", "node-b", "node-c");
+        Map<String, String> before = owners();
+        membership.setNodes("node-a", "node-a", "node-b");
+        Map<String, String> after = owners();
+
+        for (String fundCode : fundCodes) {
+            if ("node-c".equals(before.get(fundCode))) {
+                assertTrue(after.get(fundCode).equals("node-a") || after.get(fundCode).equals("node-b"));
+            } else {
+                assertEquals(before.get(fundCode), after.get(fundCode), "未下线节点的基金不应迁移：" + fundCode);
+            }
+        }
+    }
+
+    private Map<String, String> owners() {
+        Map<String, String> owners = new HashMap<>();
+        for (String fundCode : fundCodes) {
+            owners.put(fundCode, router.ownerOf(fundCode));
+        }
+        return owners;
+    }
+
+    private static class TestMembership implements ClusterMembership {
+        private String localNodeId;
+        private List<String> liveNodeIds;
+
+        void setNodes(String localNodeId, String... liveNodeIds) {
+            this.localNodeId = localNodeId;
+            this.liveNodeIds = Arrays.asList(liveNodeIds);
+        }
+
+        @Override
+        public String getLocalNodeId() {
+            return localNodeId;
+        }
+
+        @Override
+        public List<String> getLiveNodeIds() {
+            return liveNodeIds;
+        }
+    }
+}
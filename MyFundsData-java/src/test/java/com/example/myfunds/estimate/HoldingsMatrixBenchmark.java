@@ -0,0 +1,123 @@
+package com.example.myfunds.estimate;
+
+import com.example.myfunds.entity.FundStock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 全量估值基准测试：CSR 稀疏矩阵乘法与逐基金遍历持仓对象的对比
+ * 逐基金遍历与原有估值方式一致：按股票代码查行情涨跌幅，再按持仓比例加权求和
+ * 运行：mvn test-compile 后执行本类 main 方法
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class HoldingsMatrixBenchmark {
+
+    @Param({"1000", "10000"})
+    private int fundCount;
+
+    /**
+     * 每只基金披露的重仓股数量
+     */
+    @Param({"10"})
+    private int holdingsPerFund;
+
+    @Param({"5000"})
+    private int stockCount;
+
+    private List<List<FundStock>> holdingsByFund;
+
+    private Map<String, Double> growthByStockCode;
+
+    private HoldingsMatrix matrix;
+
+    private double[] stockGrowths;
+
+    private double[] fundGrowths;
+
+    @Setup
+    public void setUp() {
+        Random random = new Random(42);
+        growthByStockCode = new HashMap<>(stockCount * 2);
+        for (int i = 0; i < stockCount; i++) {
+            growthByStockCode.put(stockCode(i), random.nextGaussian() * 2);
+        }
+
+        holdingsByFund = new ArrayList<>(fundCount);
+        HoldingsMatrix.Builder builder = new HoldingsMatrix.Builder();
+        for (int fund = 0; fund < fundCount; fund++) {
+            builder.addFund(fund + 1);
+            List<FundStock> holdings = new ArrayList<>(holdingsPerFund);
+            for (int i = 0; i < holdingsPerFund; i++) {
+                FundStock stock = new FundStock();
+                stock.setStockCode(stockCode(random.nextInt(stockCount)));
+                stock.setHoldingRatio(1 + random.nextDouble() * 9);
+                holdings.add(stock);
+                builder.addHolding(stock.getStockCode(), stock.getHoldingRatio() / 100);
+            }
+            holdingsByFund.add(holdings);
+        }
+        matrix = builder.build();
+
+        stockGrowths = new double[matrix.getStockCount()];
+        for (int column = 0; column < stockGrowths.length; column++) {
+            stockGrowths[column] = growthByStockCode.get(matrix.getStockCode(column));
+        }
+        fundGrowths = new double[matrix.getFundCount()];
+    }
+
+    @Benchmark
+    public double[] csrMultiply() {
+        matrix.multiply(stockGrowths, fundGrowths);
+        return fundGrowths;
+    }
+
+    @Benchmark
+    public double[] perFundLoop() {
+        double[] result = new double[holdingsByFund.size()];
+        for (int fund = 0; fund < result.length; fund++) {
+            double estimatedGrowth = 0.0;
+            for (FundStock stock : holdingsByFund.get(fund)) {
+                Double dayGrowth = growthByStockCode.get(stock.getStockCode());
+                if (dayGrowth != null) {
+                    estimatedGrowth += (stock.getHoldingRatio() / 100) * dayGrowth;
+                }
+            }
+            result[fund] = estimatedGrowth;
+        }
+        return result;
+    }
+
+    private static String stockCode(int index) {
+        return String.format("%06d", index);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder()
+                .include(HoldingsMatrixBenchmark.class.getSimpleName())
+                .build()).run();
+    }
+}
@@ -0,0 +1,99 @@
+package com.example.myfunds.estimate;
+
+import com.example.myfunds.entity.FundStock;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+/**
+ * 持仓稀疏矩阵测试：矩阵乘法结果须与逐基金遍历持仓对象加权求和一致
+ */
+class HoldingsMatrixTest {
+
+    private static final double DELTA = 1e-9;
+
+    @Test
+    void multiplyMatchesPerFundLoop() {
+        Random random = new Random(7);
+        int stockCount = 300;
+        Map<String, Double> growthByStockCode = new HashMap<>();
+        for (int i = 0; i < stockCount; i++) {
+            growthByStockCode.put(stockCode(i), random.nextGaussian() * 2);
+        }
+
+        // 基金和持仓数量超过构建器的初始容量，覆盖扩容路径；部分基金没有持仓
+        int fundCount = 200;
+        List<List<FundStock>> holdingsByFund = new ArrayList<>();
+        HoldingsMatrix.Builder builder = new HoldingsMatrix.Builder();
+        for (int fund = 0; fund < fundCount; fund++) {
+            builder.addFund(fund + 1);
+            int holdingCount = fund % 10 == 0 ? 0 : 10;
+            List<FundStock> holdings = new ArrayList<>();
+            for (int i = 0; i < holdingCount; i++) {
+                FundStock stock = new FundStock();
+                stock.setStockCode(stockCode(random.nextInt(stockCount)));
+                stock.setHoldingRatio(1 + random.nextDouble() * 9);
+                stock.setDayGrowth(growthByStockCode.get(stock.getStockCode()));
+                holdings.add(stock);
+                builder.addHolding(stock.getStockCode(), stock.getHoldingRatio() / 100);
+            }
+            holdingsByFund.add(holdings);
+        }
+        HoldingsMatrix matrix = builder.build();
+
+        double[] stockGrowths = new double[matrix.getStockCount()];
+        for (int column = 0; column < stockGrowths.length; column++) {
+            stockGrowths[column] = growthByStockCode.get(matrix.getStockCode(column));
+        }
+        double[] result = new double[matrix.getFundCount()];
+        matrix.multiply(stockGrowths, result);
+
+        assertEquals(fundCount, matrix.getFundCount());
+        assertEquals(180 * 10, matrix.getEntryCount());
+        for (int row = 0; row < fundCount; row++) {
+            assertEquals(row + 1, matrix.getFundId(row));
+            double expected = 0.0;
+            for (FundStock stock : holdingsByFund.get(row)) {
+                expected += (stock.getHoldingRatio() / 100) * stock.getDayGrowth();
+            }
+            assertEquals(expected, result[row], DELTA, "基金ID：" + matrix.getFundId(row));
+        }
+    }
+
+    @Test
+    void sharedStocksMapToOneColumn() {
+        HoldingsMatrix matrix = new HoldingsMatrix.Builder()
+                .addFund(1).addHolding("600519", 0.10).addHolding("000858", 0.05)
+                .addFund(2).addHolding("600519", 0.20)
+                .build();
+
+        assertEquals(2, matrix.getStockCount());
+        assertEquals(3, matrix.getEntryCount());
+        assertEquals(-1, matrix.getColumn("300750"));
+
+        double[] stockGrowths = new double[matrix.getStockCount()];
+        stockGrowths[matrix.getColumn("600519")] = 2.0;
+        stockGrowths[matrix.getColumn("000858")] = -1.0;
+        double[] result = new double[matrix.getFundCount()];
+        matrix.multiply(stockGrowths, result);
+
+        assertEquals(0.15, result[0], DELTA);
+        assertEquals(0.40, result[1], DELTA);
+    }
+
+    @Test
+    void addHoldingBeforeAddFundIsRejected() {
+        assertThrows(RuntimeException.class, () -> new HoldingsMatrix.Builder().addHolding("600519", 0.1));
+    }
+
+    private static String stockCode(int index) {
+        return String.format("%06d", index);
+    }
+}
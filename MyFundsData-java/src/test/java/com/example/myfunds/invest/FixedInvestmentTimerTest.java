@@ -0,0 +1,188 @@
+package com.example.myfunds.invest;
+
+import com.example.myfunds.dto.FixedInvestmentRunSummary;
+import com.example.myfunds.entity.FixedInvestment;
+import com.example.myfunds.mapper.FixedInvestmentMapper;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 定投执行定时器测试：到期触发、改期、取消及失败重试
+ */
+@ExtendWith(MockitoExtension.class)
+class FixedInvestmentTimerTest {
+
+    @Mock
+    private FixedInvestmentMapper fixedInvestmentMapper;
+
+    @Mock
+    private FixedInvestmentBatchExecutor fixedInvestmentBatchExecutor;
+
+    @InjectMocks
+    private FixedInvestmentTimer timer;
+
+    private final long past = System.currentTimeMillis() - 60_000;
+
+    private final long future = System.currentTimeMillis() + 3_600_000;
+
+    @BeforeEach
+    void setUp() {
+        ReflectionTestUtils.setField(timer, "batchSize", 500);
+        ReflectionTestUtils.setField(timer, "retryDelayMillis", 300_000L);
+        ReflectionTestUtils.setField(timer, "pageSize", 1000);
+    }
+
+    @Test
+    void nothingFiresBeforeRebuild() {
+        timer.schedule(1L, past);
+
+        timer.fireDuePlans();
+
+        verify(fixedInvestmentBatchExecutor, never()).executeDuePlansByIds(anyList(), any());
+    }
+
+    @Test
+    void rebuildLoadsActivePlansAndFiresOnlyDueOnes() {
+        when(fixedInvestmentMapper.selectPageByStatus(eq("ACTIVE"), isNull(), eq(1000)))
+                .thenReturn(Arrays.asList(plan(1L, LocalDateTime.now().minusMinutes(1)),
+                        plan(2L, LocalDateTime.now().plusHours(1))));
+        when(fixedInvestmentBatchExecutor.executeDuePlansByIds(eq(Collections.singletonList(1L)), any()))
+                .thenReturn(new FixedInvestmentRunSummary());
+        when(fixedInvestmentMapper.selectByIds(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(plan(1L, LocalDateTime.now().plusMonths(1))));
+        timer.rebuild();
+
+        timer.fireDuePlans();
+
+        verify(fixedInvestmentBatchExecutor, times(1)).executeDuePlansByIds(anyList(), any());
+        // 执行后按数据库中的下次执行时间重新排期
+        assertEquals(2, timer.getScheduledCount());
+    }
+
+    @Test
+    void rescheduleReplacesEarlierDueTime() {
+        ready();
+        timer.schedule(1L, past);
+        timer.schedule(1L, future);
+
+        timer.fireDuePlans();
+
+        verify(fixedInvestmentBatchExecutor, never()).executeDuePlansByIds(anyList(), any());
+        assertEquals(1, timer.getScheduledCount());
+    }
+
+    @Test
+    void rescheduleToEarlierTimeFiresOnce() {
+        ready();
+        when(fixedInvestmentBatchExecutor.executeDuePlansByIds(eq(Collections.singletonList(1L)), any()))
+                .thenReturn(new FixedInvestmentRunSummary());
+        timer.schedule(1L, future);
+        timer.schedule(1L, past);
+
+        timer.fireDuePlans();
+
+        verify(fixedInvestmentBatchExecutor, times(1)).executeDuePlansByIds(anyList(), any());
+        assertEquals(0, timer.getScheduledCount());
+    }
+
+    @Test
+    void cancelledPlanDoesNotFire() {
+        ready();
+        timer.schedule(1L, past);
+        timer.cancel(1L);
+
+        timer.fireDuePlans();
+
+        verify(fixedInvestmentBatchExecutor, never()).executeDuePlansByIds(anyList(), any());
+        assertEquals(0, timer.getScheduledCount());
+    }
+
+    @Test
+    void failedPlanIsRetriedAfterDelay() {
+        ready();
+        FixedInvestmentRunSummary summary = new FixedInvestmentRunSummary();
+        summary.getFailedPlanIds().add(1L);
+        when(fixedInvestmentBatchExecutor.executeDuePlansByIds(eq(Collections.singletonList(1L)), any()))
+                .thenReturn(summary);
+        when(fixedInvestmentMapper.selectByIds(Collections.singletonList(1L)))
+                .thenReturn(Collections.singletonList(plan(1L, LocalDateTime.now().minusMinutes(1))));
+        timer.schedule(1L, past);
+
+        timer.fireDuePlans();
+        timer.fireDuePlans();
+
+        // 失败的计划延后重试，不会在下一次触发中立即重复执行
+        verify(fixedInvestmentBatchExecutor, times(1)).executeDuePlansByIds(anyList(), any());
+        assertEquals(1, timer.getScheduledCount());
+    }
+
+    @Test
+    void batchFailureReschedulesAllPlansOfTheBatch() {
+        ready();
+        when(fixedInvestmentBatchExecutor.executeDuePlansByIds(anyList(), any()))
+                .thenThrow(new RuntimeException("数据库不可用"));
+        timer.schedule(1L, past);
+        timer.schedule(2L, past);
+
+        timer.fireDuePlans();
+
+        verify(fixedInvestmentBatchExecutor, times(1)).executeDuePlansByIds(anyList(), any());
+        assertEquals(2, timer.getScheduledCount());
+    }
+
+    @Test
+    void duePlansAreExecutedInBatchesInDueOrder() {
+        ready();
+        ReflectionTestUtils.setField(timer, "batchSize", 2);
+        when(fixedInvestmentBatchExecutor.executeDuePlansByIds(anyList(), any()))
+                .thenReturn(new FixedInvestmentRunSummary());
+        for (long planId = 5; planId >= 1; planId--) {
+            timer.schedule(planId, past + planId);
+        }
+
+        timer.fireDuePlans();
+
+        @SuppressWarnings("unchecked")
+        ArgumentCaptor<List<Long>> batches = ArgumentCaptor.forClass(List.class);
+        verify(fixedInvestmentBatchExecutor, times(3)).executeDuePlansByIds(batches.capture(), any());
+        List<List<Long>> expected = new ArrayList<>();
+        expected.add(Arrays.asList(1L, 2L));
+        expected.add(Arrays.asList(3L, 4L));
+        expected.add(Collections.singletonList(5L));
+        assertEquals(expected, batches.getAllValues());
+    }
+
+    private void ready() {
+        ReflectionTestUtils.setField(timer, "ready", true);
+    }
+
+    private static FixedInvestment plan(Long id, LocalDateTime nextExecutionDate) {
+        FixedInvestment plan = new FixedInvestment();
+        plan.setId(id);
+        plan.setStatus("ACTIVE");
+        plan.setNextExecutionDate(nextExecutionDate);
+        return plan;
+    }
+}
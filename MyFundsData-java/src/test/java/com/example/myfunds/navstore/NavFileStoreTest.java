@@ -0,0 +1,145 @@
+package com.example.myfunds.navstore;
+
+import com.example.myfunds.entity.FundNavHistory;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * 净值历史文件存储测试：追加、重写后按日期区间读取
+ */
+class NavFileStoreTest {
+
+    private static final long FUND_ID = 1L;
+
+    /**
+     * 2026-10-16 为周五，其后的周末没有净值
+     */
+    private static final LocalDate FRIDAY = LocalDate.of(2026, 10, 16);
+
+    @TempDir
+    Path tempDir;
+
+    private NavFileStore store;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        store = new NavFileStore();
+        ReflectionTestUtils.setField(store, "enabled", true);
+        ReflectionTestUtils.setField(store, "storeDir", tempDir.toString());
+        store.init();
+    }
+
+    @Test
+    void appendedRecordsRoundTrip() {
+        store.append(FUND_ID, FRIDAY.minusDays(1), 1.0010);
+        store.append(FUND_ID, FRIDAY, 1.0020);
+        store.append(FUND_ID, FRIDAY.plusDays(3), 1.0030);
+
+        NavSeries series = store.read(FUND_ID, FRIDAY.minusDays(1), FRIDAY.plusDays(3));
+
+        assertEquals(FUND_ID, series.getFundId());
+        assertEquals(3, series.size());
+        assertEquals(FRIDAY.minusDays(1), series.getNavDate(0));
+        assertEquals(1.0010, series.getNav(0));
+        assertEquals(FRIDAY, series.getNavDate(1));
+        assertEquals(1.0020, series.getNav(1));
+        assertEquals(FRIDAY.plusDays(3), series.getNavDate(2));
+        assertEquals(1.0030, series.getNav(2));
+    }
+
+    @Test
+    void rangeBoundsFallingInGapsSelectNeighbouringRecords() {
+        store.append(FUND_ID, FRIDAY, 1.0020);
+        store.append(FUND_ID, FRIDAY.plusDays(3), 1.0030);
+
+        // 区间起点为周六、终点为周日，只包含周五
+        NavSeries weekend = store.read(FUND_ID, FRIDAY, FRIDAY.plusDays(2));
+        assertEquals(1, weekend.size());
+        assertEquals(FRIDAY, weekend.getNavDate(0));
+
+        // 区间完全落在周末
+        assertTrue(store.read(FUND_ID, FRIDAY.plusDays(1), FRIDAY.plusDays(2)).isEmpty());
+
+        // 区间起点为周六，从下周一开始
+        NavSeries fromSaturday = store.read(FUND_ID, FRIDAY.plusDays(1), FRIDAY.plusDays(10));
+        assertEquals(1, fromSaturday.size());
+        assertEquals(FRIDAY.plusDays(3), fromSaturday.getNavDate(0));
+    }
+
+    @Test
+    void sameDayOverwritesAndEarlierDateIsIgnored() {
+        store.append(FUND_ID, FRIDAY, 1.0020);
+        store.append(FUND_ID, FRIDAY, 1.0025);
+        store.append(FUND_ID, FRIDAY.minusDays(1), 0.9990);
+
+        NavSeries series = store.read(FUND_ID, FRIDAY.minusDays(7), FRIDAY);
+        assertEquals(1, series.size());
+        assertEquals(1.0025, series.getNav(0));
+    }
+
+    @Test
+    void incompleteTrailingRecordIsOverwrittenByNextAppend() throws Exception {
+        store.append(FUND_ID, FRIDAY, 1.0020);
+        Files.write(tempDir.resolve(FUND_ID + ".nav"), new byte[] {1, 2, 3}, StandardOpenOption.APPEND);
+
+        assertEquals(1, store.read(FUND_ID, FRIDAY, FRIDAY.plusDays(7)).size());
+
+        store.append(FUND_ID, FRIDAY.plusDays(3), 1.0030);
+        NavSeries series = store.read(FUND_ID, FRIDAY, FRIDAY.plusDays(7));
+        assertEquals(2, series.size());
+        assertEquals(1.0030, series.getNav(1));
+    }
+
+    @Test
+    void rewriteReplacesFileContents() throws Exception {
+        store.append(FUND_ID, FRIDAY.plusDays(3), 9.9999);
+
+        List<FundNavHistory> navs = new ArrayList<>();
+        navs.add(history(FRIDAY.minusDays(1), 1.0010));
+        navs.add(history(FRIDAY, 1.0020));
+        store.rewrite(FUND_ID, navs);
+
+        NavSeries series = store.read(FUND_ID, FRIDAY.minusDays(7), FRIDAY.plusDays(7));
+        assertEquals(2, series.size());
+        assertEquals(1.0010, series.getNav(0));
+        assertEquals(1.0020, series.getNav(1));
+    }
+
+    @Test
+    void missingFileReadsAsEmpty() {
+        assertTrue(store.read(2L, FRIDAY.minusDays(7), FRIDAY).isEmpty());
+    }
+
+    @Test
+    void indexOnOrBeforeFindsLastRecordNotAfterDate() {
+        store.append(FUND_ID, FRIDAY, 1.0020);
+        store.append(FUND_ID, FRIDAY.plusDays(3), 1.0030);
+        NavSeries series = store.read(FUND_ID, FRIDAY.minusDays(7), FRIDAY.plusDays(7));
+
+        assertEquals(-1, series.indexOnOrBefore(FRIDAY.minusDays(1)));
+        assertEquals(0, series.indexOnOrBefore(FRIDAY));
+        assertEquals(0, series.indexOnOrBefore(FRIDAY.plusDays(2)));
+        assertEquals(1, series.indexOnOrBefore(FRIDAY.plusDays(3)));
+        assertEquals(1, series.indexOnOrBefore(FRIDAY.plusDays(30)));
+    }
+
+    private static FundNavHistory history(LocalDate navDate, double nav) {
+        FundNavHistory history = new FundNavHistory();
+        history.setFundId(FUND_ID);
+        history.setNavDate(navDate);
+        history.setNav(nav);
+        return history;
+    }
+}
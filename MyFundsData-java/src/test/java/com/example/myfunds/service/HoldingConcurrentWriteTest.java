@@ -0,0 +1,200 @@
+package com.example.myfunds.service;
+
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.dto.OrderSettlementSummary;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.invest.FixedInvestmentBatchExecutor;
+import com.example.myfunds.mapper.FundMapper;
+import com.example.myfunds.order.FundOrderSettlementWorker;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.FileSystemResource;
+import org.springframework.core.io.support.EncodedResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * 同一持仓（USER_FUND 行）的并发写入测试
+ * 买入、卖出委托提交，定投执行与委托结算同时进行，最终份额须与交易记录一致，版本号须等于实际写入次数
+ * 需要 Docker 运行 MySQL 容器，没有 Docker 时跳过
+ */
+@Testcontainers(disabledWithoutDocker = true)
+@SpringBootTest(properties = {
+        "myfunds.order.settle-max-retries=50",
+        "myfunds.nav-store.dir=target/test-nav",
+        "logging.level.org.apache.ibatis=INFO",
+        "logging.level.com.example.myfunds=INFO"
+})
+class HoldingConcurrentWriteTest {
+
+    private static final long USER_ID = 1L;
+    private static final String FUND_CODE = "000001";
+    private static final double INITIAL_SHARES = 1000.0;
+    private static final int ORDER_THREADS = 10;
+    private static final int PLAN_COUNT = 10;
+
+    @Container
+    private static final MySQLContainer<?> MYSQL = new MySQLContainer<>("mysql:8.0").withDatabaseName("myfunds");
+
+    @DynamicPropertySource
+    static void datasource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", () -> MYSQL.getJdbcUrl() + "?serverTimezone=Asia/Shanghai");
+        registry.add("spring.datasource.username", MYSQL::getUsername);
+        registry.add("spring.datasource.password", MYSQL::getPassword);
+    }
+
+    @BeforeAll
+    static void initSchema() throws Exception {
+        try (Connection connection = DriverManager.getConnection(
+                MYSQL.getJdbcUrl(), MYSQL.getUsername(), MYSQL.getPassword())) {
+            ScriptUtils.executeSqlScript(connection, new EncodedResource(
+                    new FileSystemResource("../MyFundsData-sql/init.sql"), StandardCharsets.UTF_8));
+        }
+    }
+
+    @Autowired
+    private FundTradeService fundTradeService;
+
+    @Autowired
+    private FundOrderSettlementWorker fundOrderSettlementWorker;
+
+    @Autowired
+    private FixedInvestmentBatchExecutor fixedInvestmentBatchExecutor;
+
+    @Autowired
+    private FundMapper fundMapper;
+
+    @Autowired
+    private FundCache fundCache;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private Long fundId;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("DELETE FROM FUND_TRANSACTION WHERE USER_ID = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM FIXED_INVESTMENT WHERE USER_ID = ?", USER_ID);
+        jdbcTemplate.update("DELETE FROM USER_FUND WHERE USER_ID = ?", USER_ID);
+
+        // 当日净值已公布且在时效内，结算与定投都直接使用，不请求数据源
+        Fund fund = fundMapper.selectByFundCode(FUND_CODE).get();
+        fundId = fund.getId();
+        jdbcTemplate.update("UPDATE FUND SET LATEST_NAV = 1.5, NAV_DATE = ?, UPDATED_TIME = NOW() WHERE ID = ?",
+                LocalDate.now(), fundId);
+        fundCache.invalidate(fund);
+
+        jdbcTemplate.update("INSERT INTO USER_FUND (USER_ID, FUND_ID, TOTAL_SHARES, AVERAGE_COST, TOTAL_COST, "
+                + "CURRENT_VALUE, PROFIT_LOSS, PROFIT_LOSS_RATIO, VERSION) VALUES (?, ?, ?, 1.0, ?, ?, 0, 0, 0)",
+                USER_ID, fundId, INITIAL_SHARES, INITIAL_SHARES, INITIAL_SHARES * 1.5);
+    }
+
+    @Test
+    void concurrentWritesKeepSharesAndVersionConsistent() throws Exception {
+        LocalDateTime dueTime = LocalDateTime.now().minusMinutes(1);
+        List<Long> planIds = new ArrayList<>();
+        for (int i = 0; i < PLAN_COUNT; i++) {
+            jdbcTemplate.update("INSERT INTO FIXED_INVESTMENT (USER_ID, FUND_ID, AMOUNT, FREQUENCY, START_DATE, "
+                    + "NEXT_EXECUTION_DATE, STATUS) VALUES (?, ?, 200, 'DAILY', ?, ?, 'ACTIVE')",
+                    USER_ID, fundId, dueTime, dueTime);
+            planIds.add(jdbcTemplate.queryForObject("SELECT LAST_INSERT_ID()", Long.class));
+        }
+        LocalDateTime cutoffTime = LocalDate.now().atTime(23, 59, 59);
+
+        ExecutorService pool = Executors.newFixedThreadPool(16);
+        try {
+            // 第一阶段：买入、卖出委托提交与前一半定投计划执行并发，卖出检查读取的持仓正在被定投累加
+            List<Callable<Object>> phase1 = new ArrayList<>();
+            for (int i = 0; i < ORDER_THREADS; i++) {
+                phase1.add(() -> fundTradeService.buyFund(USER_ID, FUND_CODE, 100.0));
+                phase1.add(() -> fundTradeService.sellFund(USER_ID, FUND_CODE, 5.0));
+            }
+            for (Long planId : planIds.subList(0, PLAN_COUNT / 2)) {
+                phase1.add(() -> fixedInvestmentBatchExecutor.executeDuePlansByIds(
+                        Collections.singletonList(planId), LocalDateTime.now()));
+            }
+            runConcurrently(pool, phase1);
+
+            // 第二阶段：委托结算与其余定投计划执行并发，结算按版本号乐观更新，冲突后重试
+            List<Callable<Object>> phase2 = new ArrayList<>();
+            phase2.add(() -> fundOrderSettlementWorker.settle(cutoffTime));
+            for (Long planId : planIds.subList(PLAN_COUNT / 2, PLAN_COUNT)) {
+                phase2.add(() -> fixedInvestmentBatchExecutor.executeDuePlansByIds(
+                        Collections.singletonList(planId), LocalDateTime.now()));
+            }
+            // 同一计划再执行一次，已推进执行时间的计划不会重复执行
+            for (Long planId : planIds) {
+                phase2.add(() -> fixedInvestmentBatchExecutor.executeDuePlansByIds(
+                        Collections.singletonList(planId), LocalDateTime.now()));
+            }
+            List<Object> results = runConcurrently(pool, phase2);
+            OrderSettlementSummary settlement = (OrderSettlementSummary) results.get(0);
+            assertEquals(ORDER_THREADS * 2, settlement.getSucceeded());
+            assertEquals(0, settlement.getDeferredFundCount());
+        } finally {
+            pool.shutdownNow();
+        }
+
+        Map<String, Object> holding = jdbcTemplate.queryForMap(
+                "SELECT TOTAL_SHARES, VERSION FROM USER_FUND WHERE USER_ID = ? AND FUND_ID = ?", USER_ID, fundId);
+        Double ledgerShares = jdbcTemplate.queryForObject(
+                "SELECT COALESCE(SUM(CASE WHEN TRANSACTION_TYPE = 'SELL' THEN -TRANSACTION_SHARES "
+                        + "ELSE TRANSACTION_SHARES END), 0) FROM FUND_TRANSACTION "
+                        + "WHERE USER_ID = ? AND FUND_ID = ? AND STATUS = 'SUCCESS'", Double.class, USER_ID, fundId);
+        Integer planTransactions = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM FUND_TRANSACTION WHERE USER_ID = ? AND TRANSACTION_TYPE = ?",
+                Integer.class, USER_ID, FixedInvestmentBatchExecutor.TRANSACTION_TYPE);
+
+        // 每个计划只执行一期；每次定投执行一次写入，全部委托在一页内结算为一次写入
+        assertEquals(PLAN_COUNT, planTransactions.intValue());
+        assertEquals(INITIAL_SHARES + ledgerShares, ((Number) holding.get("TOTAL_SHARES")).doubleValue(), 1e-6);
+        assertEquals(PLAN_COUNT + 1L, ((Number) holding.get("VERSION")).longValue());
+    }
+
+    /**
+     * 所有任务就绪后同时开始，等待全部完成并按提交顺序返回结果，任一任务失败时抛出其异常
+     */
+    private List<Object> runConcurrently(ExecutorService pool, List<Callable<Object>> tasks) throws Exception {
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Object>> futures = new ArrayList<>(tasks.size());
+        for (Callable<Object> task : tasks) {
+            futures.add(pool.submit(() -> {
+                start.await();
+                return task.call();
+            }));
+        }
+        start.countDown();
+        List<Object> results = new ArrayList<>(futures.size());
+        for (Future<Object> future : futures) {
+            results.add(future.get(60, TimeUnit.SECONDS));
+        }
+        return results;
+    }
+}
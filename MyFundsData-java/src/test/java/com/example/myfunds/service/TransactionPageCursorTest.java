@@ -0,0 +1,138 @@
+package com.example.myfunds.service;
+
+import com.example.myfunds.cache.FundCache;
+import com.example.myfunds.dto.TransactionPage;
+import com.example.myfunds.entity.Fund;
+import com.example.myfunds.entity.FundTransaction;
+import com.example.myfunds.mapper.FundTransactionMapper;
+import com.example.myfunds.service.impl.FundTradeServiceImpl;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 交易记录分页游标测试：游标格式为 交易时间_交易ID，由上一页最后一条生成，原样传回后从该位置之后读取
+ */
+@ExtendWith(MockitoExtension.class)
+class TransactionPageCursorTest {
+
+    private static final Long USER_ID = 1L;
+
+    @Mock
+    private FundTransactionMapper transactionMapper;
+
+    @Mock
+    private FundCache fundCache;
+
+    @InjectMocks
+    private FundTradeServiceImpl fundTradeService;
+
+    @Test
+    void fullPageReturnsCursorOfLastItem() {
+        LocalDateTime time = LocalDateTime.of(2026, 10, 16, 10, 15, 30);
+        when(transactionMapper.selectPageByUserId(eq(USER_ID), isNull(), isNull(), isNull(), isNull(),
+                isNull(), isNull(), eq(3)))
+                .thenReturn(transactions(transaction(14L, time.plusMinutes(2)),
+                        transaction(12L, time), transaction(11L, time.minusMinutes(1))));
+
+        TransactionPage page = fundTradeService.getUserTransactions(USER_ID, null, null, null, null, null, 2);
+
+        assertEquals(2, page.getItems().size());
+        assertTrue(page.isHasMore());
+        assertEquals("2026-10-16T10:15:30_12", page.getNextCursor());
+    }
+
+    @Test
+    void lastPageHasNoCursor() {
+        when(transactionMapper.selectPageByUserId(eq(USER_ID), isNull(), isNull(), isNull(), isNull(),
+                isNull(), isNull(), eq(3)))
+                .thenReturn(transactions(transaction(12L, LocalDateTime.of(2026, 10, 16, 10, 15, 30))));
+
+        TransactionPage page = fundTradeService.getUserTransactions(USER_ID, null, null, null, null, null, 2);
+
+        assertEquals(1, page.getItems().size());
+        assertFalse(page.isHasMore());
+        assertNull(page.getNextCursor());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"2026-10-16T10:15:30", "2026-10-16T10:15", "2026-10-16T10:15:30.123456789"})
+    void generatedCursorIsParsedBackToTimeAndId(String text) {
+        LocalDateTime time = LocalDateTime.parse(text);
+        when(transactionMapper.selectPageByUserId(eq(USER_ID), isNull(), isNull(), isNull(), isNull(),
+                isNull(), isNull(), eq(2)))
+                .thenReturn(transactions(transaction(12L, time), transaction(11L, time.minusMinutes(1))));
+        when(transactionMapper.selectPageByUserId(eq(USER_ID), isNull(), isNull(), isNull(), isNull(),
+                eq(time), eq(12L), eq(2)))
+                .thenReturn(transactions(transaction(11L, time.minusMinutes(1))));
+        String cursor = fundTradeService.getUserTransactions(USER_ID, null, null, null, null, null, 1).getNextCursor();
+
+        TransactionPage next = fundTradeService.getUserTransactions(USER_ID, null, null, null, null, cursor, 1);
+
+        assertEquals(1, next.getItems().size());
+        assertEquals(11L, next.getItems().get(0).getId());
+    }
+
+    @ParameterizedTest
+    @ValueSource(strings = {"abc", "12", "2026-10-16T10:15:30", "2026-10-16T10:15:30_", "2026-10-16T10:15:30_x",
+            "_12", "2026-13-16T10:15:30_12"})
+    void malformedCursorIsRejected(String cursor) {
+        RuntimeException error = assertThrows(RuntimeException.class,
+                () -> fundTradeService.getUserTransactions(USER_ID, null, null, null, null, cursor, 10));
+
+        assertEquals("分页游标无效：" + cursor, error.getMessage());
+        verify(transactionMapper, never()).selectPageByUserId(any(), any(), any(), any(), any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void unknownFundCodeReturnsEmptyPageWithoutQuerying() {
+        when(fundCache.getByCode("999999")).thenReturn(null);
+
+        TransactionPage page = fundTradeService.getUserTransactions(USER_ID, "999999", null, null, null, null, 10);
+
+        assertTrue(page.getItems().isEmpty());
+        assertFalse(page.isHasMore());
+        verify(transactionMapper, never()).selectPageByUserId(any(), any(), any(), any(), any(), any(), any(), anyInt());
+        verify(fundCache, never()).getById(anyLong());
+    }
+
+    private static FundTransaction transaction(Long id, LocalDateTime time) {
+        Fund fund = new Fund();
+        fund.setId(1L);
+        FundTransaction transaction = new FundTransaction();
+        transaction.setId(id);
+        transaction.setFund(fund);
+        transaction.setUserId(USER_ID);
+        transaction.setTransactionTime(time);
+        return transaction;
+    }
+
+    private static List<FundTransaction> transactions(FundTransaction... transactions) {
+        List<FundTransaction> list = new ArrayList<>();
+        Collections.addAll(list, transactions);
+        return list;
+    }
+}
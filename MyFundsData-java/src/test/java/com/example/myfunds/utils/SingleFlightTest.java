@@ -0,0 +1,141 @@
+package com.example.myfunds.utils;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * SingleFlight 合并并发调用测试
+ */
+class SingleFlightTest {
+
+    private static final int FOLLOWERS = 8;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void concurrentCallsWithSameKeyShareOneExecution() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger executions = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("000001", () -> {
+            executions.incrementAndGet();
+            await(release);
+            return "result";
+        }));
+        waitUntil(() -> singleFlight.getInFlightCount() == 1);
+
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute("000001", () -> {
+                executions.incrementAndGet();
+                return "unexpected";
+            })));
+        }
+        waitUntil(() -> singleFlight.getCoalescedCount() == FOLLOWERS);
+        release.countDown();
+
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, executions.get());
+        assertEquals(1, singleFlight.getExecutedCount());
+        assertEquals(FOLLOWERS, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    void exceptionIsPropagatedToLeaderAndFollowers() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+        RuntimeException failure = new RuntimeException("拉取失败");
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("000001", () -> {
+            await(release);
+            throw failure;
+        }));
+        waitUntil(() -> singleFlight.getInFlightCount() == 1);
+        Future<String> follower = executor.submit(() -> singleFlight.execute("000001", () -> "unexpected"));
+        waitUntil(() -> singleFlight.getCoalescedCount() == 1);
+        release.countDown();
+
+        ExecutionException leaderError = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException followerError = assertThrows(ExecutionException.class, () -> follower.get(5, TimeUnit.SECONDS));
+        assertSame(failure, leaderError.getCause());
+        assertSame(failure, followerError.getCause());
+    }
+
+    @Test
+    void keyIsRemovedAfterCompletionSoNextCallExecutesAgain() {
+        SingleFlight<String, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger executions = new AtomicInteger();
+
+        assertEquals(1, singleFlight.execute("000001", executions::incrementAndGet));
+        assertEquals(0, singleFlight.getInFlightCount());
+        assertEquals(2, singleFlight.execute("000001", executions::incrementAndGet));
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute("000001", () -> {
+            throw new IllegalStateException("失败");
+        }));
+        assertEquals(0, singleFlight.getInFlightCount());
+        assertEquals(3, singleFlight.execute("000001", executions::incrementAndGet));
+        assertEquals(4, singleFlight.getExecutedCount());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    @Test
+    void differentKeysExecuteIndependently() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> first = executor.submit(() -> singleFlight.execute("000001", () -> {
+            await(release);
+            return "000001";
+        }));
+        waitUntil(() -> singleFlight.getInFlightCount() == 1);
+
+        assertEquals("000002", singleFlight.execute("000002", () -> "000002"));
+        release.countDown();
+        assertEquals("000001", first.get(5, TimeUnit.SECONDS));
+        assertEquals(2, singleFlight.getExecutedCount());
+        assertEquals(0, singleFlight.getCoalescedCount());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (!condition.getAsBoolean()) {
+            assertTrue(System.nanoTime() < deadline, "等待条件超时");
+            Thread.sleep(1);
+        }
+    }
+}
@@ -0,0 +1,38 @@
+-- 历史持仓补录手动录入交易
+-- 手动添加持仓在写入 USER_FUND 的同时记录 MANUAL 交易之前，已有持仓在交易记录中没有来源，
+-- 持仓核对会将其判定为不一致，修正时会被删除。本脚本为这些持仓补录一笔 MANUAL 交易，
+-- 份额与成本为持仓表与已成功交易累计值之差，交易时间取持仓创建时间。
+-- 升级后、首次执行 repair=true 的持仓核对前执行一次，应在委托结算和定投执行停止时运行；
+-- 已有 MANUAL 交易的持仓不再补录，重复执行无副作用。
+-- 补录交易的ID大于已有交易，回放时排在最后；中途卖出会使累计份额归零的持仓仍会被核对报告，需人工确认
+
+USE myfunds;
+
+START TRANSACTION;
+
+INSERT INTO `FUND_TRANSACTION` (
+  `USER_ID`, `FUND_ID`, `TRANSACTION_TYPE`, `TRANSACTION_AMOUNT`, `TRANSACTION_SHARES`,
+  `TRANSACTION_PRICE`, `FEE`, `STATUS`, `TRANSACTION_TIME`
+)
+SELECT uf.`USER_ID`, uf.`FUND_ID`, 'MANUAL',
+       uf.`TOTAL_COST` - COALESCE(l.`COST`, 0),
+       uf.`TOTAL_SHARES` - COALESCE(l.`SHARES`, 0),
+       (uf.`TOTAL_COST` - COALESCE(l.`COST`, 0)) / (uf.`TOTAL_SHARES` - COALESCE(l.`SHARES`, 0)),
+       0, 'SUCCESS', uf.`CREATED_TIME`
+FROM `USER_FUND` uf
+LEFT JOIN (
+  SELECT `USER_ID`, `FUND_ID`,
+         SUM(CASE WHEN `TRANSACTION_TYPE` = 'SELL' THEN -`TRANSACTION_SHARES` ELSE `TRANSACTION_SHARES` END) AS `SHARES`,
+         SUM(CASE WHEN `TRANSACTION_TYPE` = 'SELL' THEN -`TRANSACTION_SHARES` ELSE `TRANSACTION_SHARES` END
+             * `TRANSACTION_PRICE`) AS `COST`
+  FROM `FUND_TRANSACTION`
+  WHERE `STATUS` = 'SUCCESS'
+  GROUP BY `USER_ID`, `FUND_ID`
+) l ON l.`USER_ID` = uf.`USER_ID` AND l.`FUND_ID` = uf.`FUND_ID`
+WHERE NOT EXISTS (
+  SELECT 1 FROM `FUND_TRANSACTION` m
+  WHERE m.`USER_ID` = uf.`USER_ID` AND m.`FUND_ID` = uf.`FUND_ID` AND m.`TRANSACTION_TYPE` = 'MANUAL'
+)
+AND uf.`TOTAL_SHARES` - COALESCE(l.`SHARES`, 0) > 0.000001;
+
+COMMIT;
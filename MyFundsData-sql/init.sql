@@ -51,6 +51,7 @@ CREATE TABLE `FUND` (
   `ESTABLISH_DATE` DATETIME COMMENT '成立日期',
   `LATEST_NAV` DOUBLE COMMENT '最新净值',
   `DAY_GROWTH` DOUBLE COMMENT '日涨幅（%）',
+  `NAV_DATE` DATE COMMENT '最新净值对应的净值日期',
   `WEEK_GROWTH` DOUBLE COMMENT '周涨幅（%）',
   `MONTH_GROWTH` DOUBLE COMMENT '月涨幅（%）',
   `QUARTER_GROWTH` DOUBLE COMMENT '季涨幅（%）',
@@ -68,6 +69,7 @@ CREATE TABLE `FUND` (
 
 -- ----------------------------
 -- 3. 基金股票持仓表
+-- 按报告期（REPORT_DATE）保留历史快照，最新报告期即当前持仓
 -- ----------------------------
 DROP TABLE IF EXISTS `FUND_STOCK`;
 CREATE TABLE `FUND_STOCK` (
@@ -83,7 +85,7 @@ CREATE TABLE `FUND_STOCK` (
   `CREATED_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `UPDATED_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`ID`),
-  INDEX `IDX_FUND_ID` (`FUND_ID`),
+  UNIQUE KEY `UK_FUND_REPORT_STOCK` (`FUND_ID`, `REPORT_DATE`, `STOCK_CODE`),
   INDEX `IDX_STOCK_CODE` (`STOCK_CODE`),
   CONSTRAINT `FK_FUND_STOCK_FUND_ID` FOREIGN KEY (`FUND_ID`) REFERENCES `FUND` (`ID`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='基金股票持仓表';
@@ -102,6 +104,7 @@ CREATE TABLE `USER_FUND` (
   `CURRENT_VALUE` DOUBLE COMMENT '当前市值',
   `PROFIT_LOSS` DOUBLE COMMENT '盈亏金额',
   `PROFIT_LOSS_RATIO` DOUBLE COMMENT '盈亏率（%）',
+  `VERSION` BIGINT NOT NULL DEFAULT 0 COMMENT '版本号，每次更新加1，用于乐观并发控制',
   `CREATED_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `UPDATED_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`ID`),
@@ -115,25 +118,30 @@ CREATE TABLE `USER_FUND` (
 -- ----------------------------
 -- 5. 基金交易记录表
 -- ----------------------------
+-- 买入、卖出先以 PENDING 委托写入，净值确认后由结算任务按基金批量定价并更新为 SUCCESS/FAILED
+-- 结算按 IDX_STATUS_FUND (STATUS, FUND_ID, ID) 查找待结算基金并分页读取委托
+-- 用户交易记录按 (TRANSACTION_TIME, ID) 倒序游标分页，IDX_USER_TIME 与按基金筛选时的 IDX_USER_FUND_TIME 支持从游标位置直接定位
 DROP TABLE IF EXISTS `FUND_TRANSACTION`;
 CREATE TABLE `FUND_TRANSACTION` (
   `ID` BIGINT NOT NULL AUTO_INCREMENT COMMENT '交易ID',
   `USER_ID` BIGINT NOT NULL COMMENT '用户ID',
   `FUND_ID` BIGINT NOT NULL COMMENT '基金ID',
-  `TRANSACTION_TYPE` VARCHAR(20) NOT NULL COMMENT '交易类型：BUY-买入，SELL-卖出',
-  `TRANSACTION_AMOUNT` DOUBLE NOT NULL COMMENT '交易金额（元）',
-  `TRANSACTION_SHARES` DOUBLE NOT NULL COMMENT '交易份额',
-  `TRANSACTION_PRICE` DOUBLE NOT NULL COMMENT '交易价格',
-  `FEE` DOUBLE NOT NULL COMMENT '手续费（元）',
+  `TRANSACTION_TYPE` VARCHAR(20) NOT NULL COMMENT '交易类型：BUY-买入，SELL-卖出，FIXED_INVESTMENT-定投，MANUAL-手动录入持仓',
+  `TRANSACTION_AMOUNT` DOUBLE NULL COMMENT '交易金额（元），卖出委托在确认前为空',
+  `TRANSACTION_SHARES` DOUBLE NULL COMMENT '交易份额，买入委托在确认前为空',
+  `TRANSACTION_PRICE` DOUBLE NULL COMMENT '交易价格，确认前为空',
+  `FEE` DOUBLE NULL COMMENT '手续费（元），确认前为空',
   `STATUS` VARCHAR(20) NOT NULL DEFAULT 'SUCCESS' COMMENT '交易状态：SUCCESS-成功，FAILED-失败，PENDING-处理中',
   `TRANSACTION_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '交易时间',
   `CREATED_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
   `UPDATED_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
   PRIMARY KEY (`ID`),
   INDEX `IDX_USER_ID` (`USER_ID`),
+  INDEX `IDX_USER_TIME` (`USER_ID`, `TRANSACTION_TIME`, `ID`),
+  INDEX `IDX_USER_FUND_TIME` (`USER_ID`, `FUND_ID`, `TRANSACTION_TIME`, `ID`),
   INDEX `IDX_FUND_ID` (`FUND_ID`),
   INDEX `IDX_TRANSACTION_TYPE` (`TRANSACTION_TYPE`),
-  INDEX `IDX_STATUS` (`STATUS`),
+  INDEX `IDX_STATUS_FUND` (`STATUS`, `FUND_ID`, `ID`),
   INDEX `IDX_TRANSACTION_TIME` (`TRANSACTION_TIME`),
   CONSTRAINT `FK_TRANSACTION_USER_ID` FOREIGN KEY (`USER_ID`) REFERENCES `USER` (`ID`) ON DELETE CASCADE,
   CONSTRAINT `FK_TRANSACTION_FUND_ID` FOREIGN KEY (`FUND_ID`) REFERENCES `FUND` (`ID`) ON DELETE CASCADE
@@ -142,6 +150,7 @@ CREATE TABLE `FUND_TRANSACTION` (
 -- ----------------------------
 -- 6. 定投计划表
 -- ----------------------------
+-- 到期计划按 (STATUS, NEXT_EXECUTION_DATE, ID) 键集分页扫描，由联合索引 IDX_STATUS_NEXT_EXECUTION 支撑
 DROP TABLE IF EXISTS `FIXED_INVESTMENT`;
 CREATE TABLE `FIXED_INVESTMENT` (
   `ID` BIGINT NOT NULL AUTO_INCREMENT COMMENT '定投计划ID',
@@ -157,14 +166,78 @@ CREATE TABLE `FIXED_INVESTMENT` (
   PRIMARY KEY (`ID`),
   INDEX `IDX_USER_ID` (`USER_ID`),
   INDEX `IDX_FUND_ID` (`FUND_ID`),
-  INDEX `IDX_STATUS` (`STATUS`),
+  INDEX `IDX_STATUS_NEXT_EXECUTION` (`STATUS`, `NEXT_EXECUTION_DATE`, `ID`),
   INDEX `IDX_NEXT_EXECUTION_DATE` (`NEXT_EXECUTION_DATE`),
   CONSTRAINT `FK_FIXED_INVESTMENT_USER_ID` FOREIGN KEY (`USER_ID`) REFERENCES `USER` (`ID`) ON DELETE CASCADE,
   CONSTRAINT `FK_FIXED_INVESTMENT_FUND_ID` FOREIGN KEY (`FUND_ID`) REFERENCES `FUND` (`ID`) ON DELETE CASCADE
 ) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='定投计划表';
 
 -- ----------------------------
--- 7. 插入测试数据
+-- 7. 基金净值历史表
+-- 主键 (FUND_ID, NAV_DATE) 即聚簇索引，同一基金的净值按日期连续存放，区间查询为一次主键范围扫描
+-- ----------------------------
+DROP TABLE IF EXISTS `FUND_NAV_HISTORY`;
+CREATE TABLE `FUND_NAV_HISTORY` (
+  `FUND_ID` BIGINT NOT NULL COMMENT '基金ID',
+  `NAV_DATE` DATE NOT NULL COMMENT '净值日期',
+  `NAV` DOUBLE NOT NULL COMMENT '单位净值',
+  `DAY_GROWTH` DOUBLE COMMENT '日涨幅（%）',
+  `CREATED_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP COMMENT '创建时间',
+  PRIMARY KEY (`FUND_ID`, `NAV_DATE`),
+  CONSTRAINT `FK_NAV_HISTORY_FUND_ID` FOREIGN KEY (`FUND_ID`) REFERENCES `FUND` (`ID`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='基金净值历史表';
+
+-- ----------------------------
+-- 8. 服务节点心跳表
+-- 多实例部署时用于发现存活节点，按一致性哈希分配基金刷新分片
+-- ----------------------------
+DROP TABLE IF EXISTS `SERVICE_NODE`;
+CREATE TABLE `SERVICE_NODE` (
+  `NODE_ID` VARCHAR(100) NOT NULL COMMENT '节点ID',
+  `STARTED_TIME` DATETIME NOT NULL COMMENT '节点启动时间',
+  `HEARTBEAT_TIME` DATETIME NOT NULL COMMENT '最近心跳时间',
+  PRIMARY KEY (`NODE_ID`),
+  INDEX `IDX_HEARTBEAT_TIME` (`HEARTBEAT_TIME`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='服务节点心跳表';
+
+-- ----------------------------
+-- 9. 用户持仓快照表
+-- 持仓是交易记录的投影，快照保存截至 LAST_TRANSACTION_ID（含）的持仓份额与成本，
+-- 重建或核对时从快照出发只回放其后的交易；该ID之前不存在待结算委托
+-- ----------------------------
+DROP TABLE IF EXISTS `USER_HOLDING_SNAPSHOT`;
+CREATE TABLE `USER_HOLDING_SNAPSHOT` (
+  `USER_ID` BIGINT NOT NULL COMMENT '用户ID',
+  `FUND_ID` BIGINT NOT NULL COMMENT '基金ID',
+  `TOTAL_SHARES` DOUBLE NOT NULL COMMENT '持有总份额',
+  `TOTAL_COST` DOUBLE NOT NULL COMMENT '总成本',
+  `LAST_TRANSACTION_ID` BIGINT NOT NULL COMMENT '快照包含的最后一笔交易ID，同一用户的快照行相同',
+  `SNAPSHOT_TIME` DATETIME NOT NULL COMMENT '快照时间',
+  PRIMARY KEY (`USER_ID`, `FUND_ID`),
+  CONSTRAINT `FK_HOLDING_SNAPSHOT_USER_ID` FOREIGN KEY (`USER_ID`) REFERENCES `USER` (`ID`) ON DELETE CASCADE,
+  CONSTRAINT `FK_HOLDING_SNAPSHOT_FUND_ID` FOREIGN KEY (`FUND_ID`) REFERENCES `FUND` (`ID`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户持仓快照表';
+
+-- ----------------------------
+-- 10. 用户资产汇总表
+-- 按用户汇总持仓的成本、市值和盈亏，交易、净值重估和估值写回时按受影响的用户重算，读取时无需扫描持仓
+-- ----------------------------
+DROP TABLE IF EXISTS `USER_PORTFOLIO`;
+CREATE TABLE `USER_PORTFOLIO` (
+  `USER_ID` BIGINT NOT NULL COMMENT '用户ID',
+  `HOLDING_COUNT` INT NOT NULL DEFAULT 0 COMMENT '持仓基金数量',
+  `TOTAL_COST` DOUBLE NOT NULL DEFAULT 0 COMMENT '总成本',
+  `MARKET_VALUE` DOUBLE NOT NULL DEFAULT 0 COMMENT '总市值',
+  `PROFIT_LOSS` DOUBLE NOT NULL DEFAULT 0 COMMENT '总盈亏',
+  `PROFIT_LOSS_RATIO` DOUBLE NOT NULL DEFAULT 0 COMMENT '总盈亏比例（%）',
+  `ESTIMATED_DAY_PROFIT` DOUBLE NOT NULL DEFAULT 0 COMMENT '当日预估收益（元）',
+  `UPDATED_TIME` DATETIME NOT NULL DEFAULT CURRENT_TIMESTAMP ON UPDATE CURRENT_TIMESTAMP COMMENT '更新时间',
+  PRIMARY KEY (`USER_ID`),
+  CONSTRAINT `FK_USER_PORTFOLIO_USER_ID` FOREIGN KEY (`USER_ID`) REFERENCES `USER` (`ID`) ON DELETE CASCADE
+) ENGINE=InnoDB DEFAULT CHARSET=utf8mb4 COMMENT='用户资产汇总表';
+
+-- ----------------------------
+-- 11. 插入测试数据
 -- ----------------------------
 -- 插入测试用户
 INSERT INTO `USER` (`USERNAME`, `PASSWORD`, `EMAIL`, `PHONE`, `NICKNAME`) VALUES 
@@ -179,3 +252,7 @@ INSERT INTO `FUND_STOCK` (`FUND_ID`, `STOCK_CODE`, `STOCK_NAME`, `HOLDING_RATIO`
 (1, '600000', '浦发银行', 8.5, 9.87, 0.56, 8500000.00, '2026-01-30'),
 (1, '000001', '平安银行', 7.2, 15.67, -0.23, 7200000.00, '2026-01-30'),
 (1, '601318', '中国平安', 6.8, 48.92, 1.89, 6800000.00, '2026-01-30');
+
+-- 插入测试基金净值历史
+INSERT INTO `FUND_NAV_HISTORY` (`FUND_ID`, `NAV_DATE`, `NAV`, `DAY_GROWTH`) VALUES 
+(1, '2026-01-30', 1.5678, 1.23);
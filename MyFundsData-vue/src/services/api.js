@@ -64,10 +64,21 @@ export const fundApi = {
   getFundInfo: (fundCode) => api.get(`/fund/info/${fundCode}`),
   // 获取基金持仓股票
   getFundHoldings: (fundCode) => api.get(`/fund/holdings/${fundCode}`),
+  // 获取基金历史持仓快照
+  getFundHoldingsHistory: (fundCode) => api.get(`/fund/holdings/${fundCode}/history`),
+  // 获取基金净值历史，from/to 为 yyyy-MM-dd，可省略
+  getFundNavHistory: (fundCode, params) => api.get(`/fund/nav-history/${fundCode}`, { params }),
   // 刷新基金数据
   refreshFundData: (fundCode) => api.post(`/fund/refresh/${fundCode}`),
   // 更新所有基金数据
-  updateAllFunds: () => api.post('/fund/update-all')
+  updateAllFunds: () => api.post('/fund/update-all'),
+  // 订阅基金实时估值，返回 EventSource，使用完毕后调用 close() 关闭
+  subscribeEstimates: (fundCodes, onEstimate) => {
+    const codes = encodeURIComponent(fundCodes.join(','));
+    const source = new EventSource(`${api.defaults.baseURL}/fund/estimates/stream?codes=${codes}`);
+    source.addEventListener('estimate', event => onEstimate(JSON.parse(event.data)));
+    return source;
+  }
 };
 
 // 基金交易相关API
@@ -88,8 +99,8 @@ export const tradeApi = {
   stopFixedInvestment: (id) => api.post(`/trade/fixed-investment/stop/${id}`),
   // 获取用户基金持仓
   getUserFunds: (userId) => api.get(`/trade/user-funds/${userId}`),
-  // 获取用户交易记录
-  getUserTransactions: (userId) => api.get(`/trade/transactions/${userId}`),
+  // 按游标分页获取用户交易记录，params 可含 fundCode、type、from、to、cursor、limit
+  getUserTransactions: (userId, params) => api.get(`/trade/transactions/${userId}`, { params }),
   // 获取用户定投计划
   getUserFixedInvestments: (userId) => api.get(`/trade/fixed-investments/${userId}`),
   // 执行定投计划